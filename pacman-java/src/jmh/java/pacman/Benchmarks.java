@@ -0,0 +1,23 @@
+package pacman;
+
+// Shared setup for the JMH suite.
+final class Benchmarks {
+    private Benchmarks() {}
+
+    // maze is "<columns>x<rows>"
+    static String[] layout(String maze, int ghosts) {
+        int split = maze.indexOf('x');
+        int columns = Integer.parseInt(maze.substring(0, split));
+        int rows = Integer.parseInt(maze.substring(split + 1));
+        return Mazes.generate(columns, rows, ghosts);
+    }
+
+    // seeded, no intro and effectively endless lives so every call does a full tick
+    static Simulation simulation(String maze, int ghosts) {
+        Simulation sim = new Simulation(0, Integer.MAX_VALUE, 42, null);
+        sim.loadLayout(layout(maze, ghosts));
+        sim.resetEntities();
+        sim.timers.cancel(Simulation.INTRO_TIMER);
+        return sim;
+    }
+}
@@ -0,0 +1,93 @@
+package pacman;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Measures the per-tick cost of wall collision for the hero and four ghosts as the maze grows.
+// Built with the JMH suite, not the game. Run with: java -cp target/benchmarks.jar pacman.CollisionBenchmark [ticks]
+public class CollisionBenchmark {
+    static final int[][] MAZE_SIZES = {
+        {19, 21},
+        {100, 100},
+        {250, 250},
+        {500, 500}
+    };
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        Simulation game = new Simulation(1, 3);
+        List<Simulation.Entity> walls = new ArrayList<Simulation.Entity>();
+
+        System.out.printf("%-10s %8s %14s %16s%n", "maze", "walls", "grid ns/tick", "scan ns/tick");
+        for (int[] size : MAZE_SIZES) {
+            game.loadLayout(Mazes.generate(size[0], size[1], 4));
+            game.resetEntities();
+            collectWalls(game, walls);
+
+            runGrid(game, ticks, new Random(1)); // warm up
+            double gridNanos = runGrid(game, ticks, new Random(2));
+
+            int scanTicks = Math.max(100, ticks / (walls.size() / 64 + 1));
+            runScan(game, walls, scanTicks, new Random(1));
+            double scanNanos = runScan(game, walls, scanTicks, new Random(2));
+
+            System.out.printf("%-10s %8d %14.1f %16.1f%n",
+                    size[0] + "x" + size[1], walls.size(), gridNanos, scanNanos);
+        }
+    }
+
+    // hero plus four ghosts each try a random turn every tick, exercising the wall check
+    static double runGrid(Simulation game, int ticks, Random random) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            game.hero.updateDirection(game.directions[random.nextInt(4)]);
+            for (int ghost = 0; ghost < game.ghosts.count; ghost++) {
+                game.updateGhostDirection(ghost, random.nextInt(4));
+            }
+        }
+        return (System.nanoTime() - start) / (double) ticks;
+    }
+
+    // the previous approach: test every moving entity against every wall
+    static double runScan(Simulation game, List<Simulation.Entity> walls, int ticks, Random random) {
+        int hits = 0;
+        Simulation.Entity probe = game.new Entity(-1, 0, 0, game.tileSize, game.tileSize);
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            game.hero.direction = game.directions[random.nextInt(4)];
+            hits += scanWalls(game, walls, game.hero);
+            for (int ghost = 0; ghost < game.ghosts.count; ghost++) {
+                probe.x = game.ghosts.x[ghost];
+                probe.y = game.ghosts.y[ghost];
+                hits += scanWalls(game, walls, probe);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (hits == -1) {
+            System.out.println(hits);
+        }
+        return elapsed / (double) ticks;
+    }
+
+    static int scanWalls(Simulation game, List<Simulation.Entity> walls, Simulation.Entity entity) {
+        for (Simulation.Entity wall : walls) {
+            if (game.intersects(entity, wall)) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    static void collectWalls(Simulation game, List<Simulation.Entity> walls) {
+        walls.clear();
+        for (int tile = 0; tile < game.wallGrid.length; tile++) {
+            if (game.wallGrid[tile]) {
+                int x = (tile % game.columnCount) * game.tileSize;
+                int y = (tile / game.columnCount) * game.tileSize;
+                walls.add(game.new Entity(-1, x, y, game.tileSize, game.tileSize));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package pacman;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The ghost move-and-collide pass over the struct-of-arrays EntityStore against the same pass
+// over one Entity object per ghost held in a HashSet, the layout the game started with.
+// Each call checks every ghost against the hero, then moves every ghost one step with a wall
+// check, as the game did before ghosts moved tile to tile (GhostAIBenchmark covers that).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityLayoutBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int ghosts;
+
+    Simulation sim;
+    HashSet<Simulation.Entity> objects;
+    GameRandom objectRandom;
+
+    @Setup
+    public void setUp() {
+        sim = Benchmarks.simulation("201x201", ghosts);
+        objects = new HashSet<Simulation.Entity>();
+        EntityStore store = sim.ghosts;
+        for (int i = 0; i < store.count; i++) {
+            Simulation.Entity ghost = sim.new Entity(store.sprite[i], store.x[i], store.y[i], sim.tileSize, sim.tileSize);
+            ghost.direction = store.direction(i);
+            ghost.updateVelocity();
+            objects.add(ghost);
+        }
+        objectRandom = new GameRandom(42);
+    }
+
+    @Benchmark
+    public int entityStore() {
+        EntityStore store = sim.ghosts;
+        Simulation.Entity hero = sim.hero;
+        int hits = 0;
+        for (int i = store.firstOverlap(0, hero.x, hero.y); i >= 0; i = store.firstOverlap(i + 1, hero.x, hero.y)) {
+            hits++;
+        }
+        for (int i = 0; i < store.count; i++) {
+            int x = store.x[i] + store.velocityX[i];
+            int y = store.y[i] + store.velocityY[i];
+            if (sim.collidesWithWall(x, y, store.size, store.size) || x <= 0 || x + store.size >= sim.boardWidth) {
+                sim.updateGhostDirection(i, sim.random.nextInt(4));
+            } else {
+                store.x[i] = x;
+                store.y[i] = y;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int hashSetOfEntities() {
+        Simulation.Entity hero = sim.hero;
+        int hits = 0;
+        for (Simulation.Entity ghost : objects) {
+            if (sim.intersects(ghost, hero)) {
+                hits++;
+            }
+        }
+        for (Simulation.Entity ghost : objects) {
+            ghost.x += ghost.velocityX;
+            ghost.y += ghost.velocityY;
+            if (sim.collidesWithWall(ghost) || ghost.x <= 0 || ghost.x + ghost.width >= sim.boardWidth) {
+                ghost.x -= ghost.velocityX;
+                ghost.y -= ghost.velocityY;
+                ghost.updateDirection(Simulation.DIRECTIONS[objectRandom.nextInt(4)]);
+            }
+        }
+        return hits;
+    }
+}
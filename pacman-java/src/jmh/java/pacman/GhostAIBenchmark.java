@@ -0,0 +1,50 @@
+package pacman;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost per tick of flow-field ghost steering while the hero keeps moving, so the shared chase
+// field is recomputed every few ticks.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GhostAIBenchmark {
+    @Param({"4", "100", "1000"})
+    public int ghosts;
+
+    @Param({"true", "false"})
+    public boolean chase;
+
+    Simulation sim;
+    int tick;
+
+    @Setup
+    public void setUp() {
+        sim = Benchmarks.simulation("101x101", ghosts);
+        sim.scatterMode = !chase;
+        sim.timers.cancel(Simulation.PHASE_TIMER);
+    }
+
+    @Benchmark
+    public int ghostTick() {
+        tick++;
+        if ((tick & 7) == 0) {
+            sim.hero.updateDirection(sim.directions[(tick >>> 3) & 3]);
+        }
+        sim.updateGame();
+        return sim.score;
+    }
+}
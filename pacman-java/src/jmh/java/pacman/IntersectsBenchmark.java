@@ -0,0 +1,50 @@
+package pacman;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Entity-vs-entity and entity-vs-wall collision checks on the default maze.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectsBenchmark {
+    Simulation sim;
+    Simulation.Entity hero;
+    Simulation.Entity touching;
+    Simulation.Entity apart;
+
+    @Setup
+    public void setUp() {
+        sim = new Simulation(0, 3);
+        hero = sim.hero;
+        touching = sim.new Entity(Simulation.RED_GHOST, hero.x + 8, hero.y, sim.tileSize, sim.tileSize);
+        apart = sim.new Entity(Simulation.RED_GHOST, hero.x + 96, hero.y, sim.tileSize, sim.tileSize);
+    }
+
+    @Benchmark
+    public boolean intersectsHit() {
+        return sim.intersects(hero, touching);
+    }
+
+    @Benchmark
+    public boolean intersectsMiss() {
+        return sim.intersects(hero, apart);
+    }
+
+    @Benchmark
+    public boolean collidesWithWall() {
+        return sim.collidesWithWall(hero);
+    }
+}
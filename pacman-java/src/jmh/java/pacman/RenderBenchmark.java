@@ -0,0 +1,59 @@
+package pacman;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One full PacMan.render() frame into an offscreen image, no display needed.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    // the view stays at the default maze's size, so larger mazes scroll under it
+    @Param({"19x21", "40x40", "500x500"})
+    public String maze;
+
+    @Param({"4", "64"})
+    public int ghosts;
+
+    PacMan game;
+    BufferedImage frame;
+    Graphics2D g2;
+
+    @Setup
+    public void setUp() {
+        game = new PacMan();
+        game.gameLoop.stop();
+        game.sim.loadLayout(Benchmarks.layout(maze, ghosts));
+        game.sim.resetEntities();
+        frame = new BufferedImage(game.viewWidth(), game.viewHeight(), BufferedImage.TYPE_INT_ARGB);
+        g2 = frame.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        game.visualTick++;
+        game.render(g2);
+        return frame;
+    }
+}
@@ -0,0 +1,55 @@
+package pacman;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Snapshot and restore of a game part way through, on heap and direct buffers.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    @Param({"false", "true"})
+    public boolean direct;
+
+    Simulation sim;
+    ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        sim = new Simulation(0, Integer.MAX_VALUE, 42, null);
+        for (int i = 0; i < 200; i++) {
+            sim.step(sim.directions[(i / 10) & 3]);
+        }
+        int size = sim.snapshotSize();
+        buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        sim.snapshot(buffer);
+    }
+
+    @Benchmark
+    public ByteBuffer snapshot() {
+        buffer.clear();
+        sim.snapshot(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public int restore() {
+        buffer.rewind();
+        sim.restore(buffer);
+        return sim.score;
+    }
+}
@@ -0,0 +1,74 @@
+package pacman;
+
+import java.util.Arrays;
+
+// Swarm-mode stress scene: thousands of ghosts on a large generated maze. Times every tick of
+// the game itself and a ghost-vs-ghost neighbourhood pass through the spatial grid, then the same
+// pass done by scanning every ghost, over fewer ticks since it is quadratic.
+// Built with the JMH suite, not the game. Run with: java -cp target/benchmarks.jar pacman.SwarmStress [ghosts] [ticks] [maze size]
+public class SwarmStress {
+    public static void main(String[] args) {
+        int ghostCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int mazeSize = args.length > 2 ? Integer.parseInt(args[2]) : 501;
+
+        Simulation sim = new Simulation(0, Integer.MAX_VALUE, 42, null);
+        sim.loadLayout(Mazes.generate(mazeSize, mazeSize, ghostCount));
+        sim.resetEntities();
+        sim.timers.cancel(Simulation.INTRO_TIMER);
+        EntityStore ghosts = sim.ghosts;
+        int[] near = new int[1024];
+
+        long[] tickNanos = new long[ticks];
+        long[] gridNanos = new long[ticks];
+        long pairs = 0;
+        for (int t = 0; t < ticks; t++) {
+            if ((t & 7) == 0) {
+                sim.hero.updateDirection(sim.directions[(t >>> 3) & 3]);
+            }
+            long start = System.nanoTime();
+            sim.step(Simulation.NO_INPUT);
+            long stepped = System.nanoTime();
+            for (int i = 0; i < ghosts.count; i++) {
+                pairs += sim.ghostGrid.overlapping(ghosts, ghosts.x[i], ghosts.y[i], near) - 1; // not itself
+            }
+            tickNanos[t] = stepped - start;
+            gridNanos[t] = System.nanoTime() - stepped;
+        }
+
+        int scanTicks = Math.max(1, Math.min(ticks, 20));
+        long[] scanNanos = new long[scanTicks];
+        for (int t = 0; t < scanTicks; t++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ghosts.count; i++) {
+                for (int j = ghosts.firstOverlap(0, ghosts.x[i], ghosts.y[i]); j >= 0;
+                        j = ghosts.firstOverlap(j + 1, ghosts.x[i], ghosts.y[i])) {
+                    if (j != i) {
+                        pairs++;
+                    }
+                }
+            }
+            scanNanos[t] = System.nanoTime() - start;
+        }
+
+        System.out.printf("%d ghosts on %dx%d, %d ticks (%d overlapping pairs seen)%n",
+                ghosts.count, sim.columnCount, sim.rowCount, ticks, pairs);
+        System.out.printf("%-22s %10s %10s %10s %10s%n", "us/tick", "mean", "p50", "p99", "max");
+        report("game tick", tickNanos);
+        report("ghost-ghost, grid", gridNanos);
+        report("ghost-ghost, scan", scanNanos);
+    }
+
+    static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf("%-22s %10.1f %10.1f %10.1f %10.1f%n", name, mean / 1000.0,
+                percentile(sorted, 50) / 1000.0, percentile(sorted, 99) / 1000.0,
+                sorted[sorted.length - 1] / 1000.0);
+    }
+
+    static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+}
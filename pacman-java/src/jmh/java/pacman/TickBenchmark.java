@@ -0,0 +1,45 @@
+package pacman;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One Simulation.updateGame() call on generated mazes. Ghost counts are capped by the maze's open tiles.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    @Param({"19x21", "100x100", "500x500"})
+    public String maze;
+
+    @Param({"4", "100", "1000"})
+    public int ghosts;
+
+    Simulation sim;
+
+    @Setup
+    public void setUp() {
+        sim = Benchmarks.simulation(maze, ghosts);
+    }
+
+    @Benchmark
+    public int updateGame() {
+        sim.updateGame();
+        if (sim.gameOver) {
+            sim.restart();
+        }
+        return sim.score;
+    }
+}
@@ -0,0 +1,42 @@
+package pacman;
+
+// Time base and lookup tables for looping UI animation. Animations read which frame they are on
+// from the one shared clock, so they stay in step with each other and with wall time however
+// their timers are coalesced, and look up what to draw for that frame in a table computed once,
+// instead of calling Math.sin or building colours while painting. The game renderer indexes the
+// same kind of tables by its visual tick, which keeps offscreen and replayed frames reproducible.
+final class AnimationClock {
+    static final AnimationClock SHARED = new AnimationClock();
+
+    private final long start = System.nanoTime();
+
+    private AnimationClock() {}
+
+    // whole frames of the given length since the clock started
+    int frame(long frameNanos) {
+        return (int) ((System.nanoTime() - start) / frameNanos);
+    }
+
+    // one period of mid + amplitude * sin over the given number of frames, rounded
+    static int[] sineTable(int frames, int mid, int amplitude) {
+        int[] table = new int[frames];
+        for (int i = 0; i < frames; i++) {
+            table[i] = mid + (int) Math.round(amplitude * Math.sin(2 * Math.PI * i / frames));
+        }
+        return table;
+    }
+
+    // one period of a square wave: high for the first half of the frames, low for the rest
+    static int[] squareTable(int frames, int high, int low) {
+        int[] table = new int[frames];
+        for (int i = 0; i < frames; i++) {
+            table[i] = i < frames / 2 ? high : low;
+        }
+        return table;
+    }
+
+    // the table's entry for a frame, wrapping around, negative frames included
+    static int at(int[] table, int frame) {
+        return table[Math.floorMod(frame, table.length)];
+    }
+}
@@ -0,0 +1,331 @@
+package pacman;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.image.BufferedImage;
+import java.awt.event.MouseEvent;
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.Timer;
+
+public class App {
+    //-Dpacman.activeRendering=true runs the game on its own loop thread at display refresh rate
+    static final boolean ACTIVE_RENDERING = Boolean.getBoolean("pacman.activeRendering");
+
+    static class DifficultySettings {
+        static final DifficultySettings EASY = new DifficultySettings(60, 4);
+        static final DifficultySettings NORMAL = new DifficultySettings(50, 3);
+        static final DifficultySettings HARD = new DifficultySettings(40, 2);
+
+        final int loopDelay;
+        final int startingLives;
+
+        DifficultySettings(int loopDelay, int startingLives) {
+            this.loopDelay = loopDelay;
+            this.startingLives = startingLives;
+        }
+    }
+
+    interface StartMenuListener {
+        void onDifficultySelected(DifficultySettings settings);
+        void onQuitRequested();
+    }
+
+    static class MenuButton extends JButton {
+        private static final Color EDGE = new Color(255, 255, 255, 180);
+        private static final Color LINES = new Color(255, 255, 255, 45);
+        private static final Color HOVER_LINES = new Color(255, 255, 255, 75);
+        private static final BasicStroke EDGE_STROKE = new BasicStroke(2f);
+        private final Color baseColor;
+        private final Color hoverColor;
+        private boolean hovered = false;
+
+        MenuButton(String text, Color baseColor, Color hoverColor) {
+            super(text);
+            this.baseColor = baseColor;
+            this.hoverColor = hoverColor;
+
+            setFont(new Font("Monospaced", Font.BOLD, 22));
+            setForeground(Color.WHITE);
+            setFocusPainted(false);
+            setBorderPainted(false);
+            setContentAreaFilled(false);
+            setOpaque(false);
+            setHorizontalAlignment(SwingConstants.CENTER);
+            setPreferredSize(new Dimension(280, 56));
+            setMaximumSize(new Dimension(280, 56));
+            setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
+
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    hovered = true;
+                    repaint();
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    hovered = false;
+                    repaint();
+                }
+            });
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            g2.setColor(hovered ? hoverColor : baseColor);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+
+            g2.setColor(EDGE);
+            g2.setStroke(EDGE_STROKE);
+            g2.drawRect(1, 1, getWidth() - 3, getHeight() - 3);
+
+            g2.setColor(hovered ? HOVER_LINES : LINES);
+            for (int y = 4; y < getHeight(); y += 6) {
+                g2.drawLine(0, y, getWidth(), y);
+            }
+            g2.dispose();
+
+            super.paintComponent(g);
+        }
+    }
+
+    static class StartMenuPanel extends JPanel {
+        private static final long FRAME_NANOS = 80_000_000L;
+        private static final Color BACKGROUND_TOP = new Color(8, 8, 26);
+        private static final Color BACKGROUND_BOTTOM = new Color(24, 4, 55);
+        private static final Color SCANLINE_COLOR = new Color(0, 255, 255, 38);
+        private static final Color GRID_COLOR = new Color(255, 0, 255, 26);
+        private static final Color FRAME_COLOR = new Color(255, 255, 0, 35);
+        private static final Color STAR_COLOR = new Color(255, 255, 255, 22);
+        private static final Color SWEEP_COLOR = new Color(0, 255, 255, 55);
+        private static final BasicStroke FRAME_STROKE = new BasicStroke(3f);
+        private static final BasicStroke PULSE_STROKE = new BasicStroke(2f);
+        private static final int PULSE_INSET = 24;
+        private static final int SWEEP_STEP = 6; // pixels per frame
+        private static final int SWEEP_HEIGHT = 4;
+        //the inner border's colour through one pulse, 18 frames being about one period of sin(frame * 0.35)
+        private static final Color[] PULSE_COLORS = pulseColors(AnimationClock.sineTable(18, 25, 20));
+
+        private final Timer animationTimer;
+        private int frame; // of AnimationClock.SHARED, at FRAME_NANOS
+        private BufferedImage background; // everything that does not move, for the current size
+
+        StartMenuPanel(StartMenuListener listener) {
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+            setBorder(BorderFactory.createEmptyBorder(90, 80, 70, 80));
+            setOpaque(true); // the background image covers every pixel
+
+            JLabel title = new JLabel("PAC-MAN", SwingConstants.CENTER);
+            title.setAlignmentX(CENTER_ALIGNMENT);
+            title.setFont(new Font("Monospaced", Font.BOLD, 72));
+            title.setForeground(new Color(255, 221, 0));
+
+            JLabel subtitle = new JLabel("INSERT COIN  •  SELECT DIFFICULTY", SwingConstants.CENTER);
+            subtitle.setAlignmentX(CENTER_ALIGNMENT);
+            subtitle.setFont(new Font("Monospaced", Font.BOLD, 19));
+            subtitle.setForeground(new Color(140, 255, 255));
+
+            JPanel buttonPanel = new JPanel();
+            buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
+            buttonPanel.setOpaque(false);
+            buttonPanel.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(90, 255, 255, 170), 2),
+                    BorderFactory.createEmptyBorder(18, 18, 18, 18)
+            ));
+
+            MenuButton easyButton = new MenuButton("Easy", new Color(22, 172, 104), new Color(31, 205, 125));
+            easyButton.setAlignmentX(CENTER_ALIGNMENT);
+            easyButton.addActionListener(e -> listener.onDifficultySelected(DifficultySettings.EASY));
+
+            MenuButton normalButton = new MenuButton("Normal", new Color(48, 108, 220), new Color(72, 136, 255));
+            normalButton.setAlignmentX(CENTER_ALIGNMENT);
+            normalButton.addActionListener(e -> listener.onDifficultySelected(DifficultySettings.NORMAL));
+
+            MenuButton hardButton = new MenuButton("Hard", new Color(186, 54, 54), new Color(230, 74, 74));
+            hardButton.setAlignmentX(CENTER_ALIGNMENT);
+            hardButton.addActionListener(e -> listener.onDifficultySelected(DifficultySettings.HARD));
+
+            MenuButton quitButton = new MenuButton("QUIT", new Color(80, 80, 95), new Color(110, 110, 130));
+            quitButton.setAlignmentX(CENTER_ALIGNMENT);
+            quitButton.addActionListener(e -> listener.onQuitRequested());
+
+            JLabel hint = new JLabel("ARROW KEYS TO MOVE  •  ANY KEY TO RESTART  •  Q TO QUIT", SwingConstants.CENTER);
+            hint.setAlignmentX(CENTER_ALIGNMENT);
+            hint.setFont(new Font("Monospaced", Font.BOLD, 13));
+            hint.setForeground(new Color(255, 210, 110));
+
+            buttonPanel.add(easyButton);
+            buttonPanel.add(Box.createRigidArea(new Dimension(0, 12)));
+            buttonPanel.add(normalButton);
+            buttonPanel.add(Box.createRigidArea(new Dimension(0, 12)));
+            buttonPanel.add(hardButton);
+            buttonPanel.add(Box.createRigidArea(new Dimension(0, 12)));
+            buttonPanel.add(quitButton);
+
+            add(title);
+            add(Box.createRigidArea(new Dimension(0, 10)));
+            add(subtitle);
+            add(Box.createRigidArea(new Dimension(0, 26)));
+            add(buttonPanel);
+            add(Box.createRigidArea(new Dimension(0, 18)));
+            add(hint);
+
+            //runs only while the menu is on show, see start() and stop()
+            animationTimer = new Timer((int) (FRAME_NANOS / 1_000_000), e -> advance());
+        }
+
+        private static Color[] pulseColors(int[] alphas) {
+            Color[] colors = new Color[alphas.length];
+            for (int i = 0; i < alphas.length; i++) {
+                colors[i] = new Color(255, 225, 60, Math.max(10, alphas[i]));
+            }
+            return colors;
+        }
+
+        // Moves to the clock's current frame, painting only the sweep's old and new rows and, when
+        // its colour changes, the pulsing border, each strip on its own as PacMan.repaintChanges does.
+        private void advance() {
+            int next = AnimationClock.SHARED.frame(FRAME_NANOS);
+            if (next == frame) {
+                return;
+            }
+            int oldSweep = sweepY(frame);
+            boolean pulsed = pulseColor(next) != pulseColor(frame);
+            frame = next;
+            if (!isShowing()) {
+                return;
+            }
+            int width = getWidth();
+            int height = getHeight();
+            paintImmediately(0, oldSweep, width, SWEEP_HEIGHT);
+            paintImmediately(0, sweepY(frame), width, SWEEP_HEIGHT);
+            if (pulsed) {
+                //a 2px stroke along the inset rectangle, with a pixel to spare either side
+                int edge = PULSE_INSET - 2;
+                int thickness = 5;
+                paintImmediately(edge, edge, width - 2 * edge, thickness);
+                paintImmediately(edge, height - PULSE_INSET - 2, width - 2 * edge, thickness);
+                paintImmediately(edge, edge, thickness, height - 2 * edge);
+                paintImmediately(width - PULSE_INSET - 2, edge, thickness, height - 2 * edge);
+            }
+        }
+
+        private Color pulseColor(int frame) {
+            return PULSE_COLORS[Math.floorMod(frame, PULSE_COLORS.length)];
+        }
+
+        private int sweepY(int frame) {
+            return Math.floorMod(frame * SWEEP_STEP, Math.max(1, getHeight()));
+        }
+
+        void start() {
+            animationTimer.start();
+        }
+
+        void stop() {
+            animationTimer.stop();
+        }
+
+        @Override
+        public void removeNotify() {
+            animationTimer.stop();
+            super.removeNotify();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            int width = getWidth();
+            int height = getHeight();
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            if (background == null || background.getWidth() != width || background.getHeight() != height) {
+                background = paintBackground(width, height);
+            }
+            g.drawImage(background, 0, 0, null);
+
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            g2.setColor(pulseColor(frame));
+            g2.setStroke(PULSE_STROKE);
+            g2.drawRect(PULSE_INSET, PULSE_INSET, width - 2 * PULSE_INSET, height - 2 * PULSE_INSET);
+
+            g2.setColor(SWEEP_COLOR);
+            g2.fillRect(0, sweepY(frame), width, SWEEP_HEIGHT);
+            g2.dispose();
+        }
+
+        // gradient, scanlines, grid, outer frame and stars, drawn once per size
+        private BufferedImage paintBackground(int width, int height) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            BufferedImage image = gc != null
+                    ? gc.createCompatibleImage(width, height)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = image.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+
+            g2.setPaint(new GradientPaint(0, 0, BACKGROUND_TOP, 0, height, BACKGROUND_BOTTOM));
+            g2.fillRect(0, 0, width, height);
+
+            g2.setColor(SCANLINE_COLOR);
+            for (int y = 0; y < height; y += 4) {
+                g2.drawLine(0, y, width, y);
+            }
+
+            g2.setColor(GRID_COLOR);
+            for (int x = 0; x < width; x += 64) {
+                g2.drawLine(x, 0, x, height);
+            }
+
+            g2.setColor(FRAME_COLOR);
+            g2.setStroke(FRAME_STROKE);
+            g2.drawRect(14, 14, width - 28, height - 28);
+
+            g2.setColor(STAR_COLOR);
+            for (int i = 0; i < 55; i++) {
+                int x = (i * 97) % width;
+                int y = (i * 57) % height;
+                int size = 2 + (i % 3);
+                g2.fillOval(x, y, size, size);
+            }
+            g2.dispose();
+            return image;
+        }
+    }
+
+    //the window fits the first level's view, the game resizes it if a later level differs
+    private static Dimension firstBoardSize() {
+        Level first = Level.pack()[0];
+        return Camera.viewSize(first.columnCount * Simulation.TILE_SIZE, first.rowCount * Simulation.TILE_SIZE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Level.pack(); //fail before opening a window if -Dpacman.levels is bad
+
+        JFrame frame = new JFrame("Pac Man");
+        frame.setResizable(false);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        new SceneManager(frame, firstBoardSize()).showMenu();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+
+    }
+}
@@ -0,0 +1,37 @@
+package pacman;
+
+// Sound output for the game. play() may be called from any thread, including the game loop,
+// and never blocks or allocates.
+public interface Audio {
+    enum Sound {
+        START,
+        HIT,
+        GAME_OVER
+    }
+
+    void play(Sound sound);
+
+    // One engine for the whole process, however many games are running.
+    // -Dpacman.audio=none, a headless JVM or a missing sound device all give the silent backend.
+    static Audio shared() {
+        return Holder.INSTANCE;
+    }
+
+    final class Holder {
+        static final Audio INSTANCE = create();
+
+        private Holder() {}
+
+        private static Audio create() {
+            if ("none".equals(System.getProperty("pacman.audio"))
+                    || java.awt.GraphicsEnvironment.isHeadless()) {
+                return new NullAudio();
+            }
+            try {
+                return new SampledAudio();
+            } catch (javax.sound.sampled.LineUnavailableException | IllegalArgumentException e) {
+                return new NullAudio();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package pacman;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Plays many independent headless games across all cores and reports throughput and scores.
+// Run with: java -cp target/classes pacman.BatchSimulator [games] [maxTicksPerGame] [seed] [threads]
+public class BatchSimulator {
+    static final int GAMES_PER_TASK = 64;
+
+    final int introTicks;
+    final int startingLives;
+    final int maxTicks;
+    final long baseSeed;
+
+    final int[] scores;
+    final long[] ticks;
+
+    BatchSimulator(int games, int introTicks, int startingLives, int maxTicks, long baseSeed) {
+        this.introTicks = introTicks;
+        this.startingLives = startingLives;
+        this.maxTicks = maxTicks;
+        this.baseSeed = baseSeed;
+        this.scores = new int[games];
+        this.ticks = new long[games];
+    }
+
+    void run(ForkJoinPool pool) {
+        pool.invoke(new GameRange(0, scores.length));
+    }
+
+    // game i always gets the same seed, so a run can be repeated game for game
+    void playGame(int index) {
+        long seed = baseSeed + index;
+        Simulation sim = new Simulation(introTicks, startingLives, seed, null);
+        Random input = new Random(~seed);
+
+        while (!sim.gameOver && sim.tick < maxTicks) {
+            // random player: turns every so often, like someone tapping arrow keys
+            if (input.nextInt(8) == 0) {
+                sim.step(sim.directions[input.nextInt(4)]);
+            } else {
+                sim.step(Simulation.NO_INPUT);
+            }
+        }
+        scores[index] = sim.score;
+        ticks[index] = sim.tick;
+    }
+
+    class GameRange extends RecursiveAction {
+        final int from;
+        final int to;
+
+        GameRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    playGame(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new GameRange(from, mid), new GameRange(mid, to));
+        }
+    }
+
+    void report(long elapsedNanos, int threads) {
+        int games = scores.length;
+        long totalTicks = 0;
+        for (long t : ticks) {
+            totalTicks += t;
+        }
+        double seconds = elapsedNanos / 1e9;
+
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        long scoreSum = 0;
+        for (int score : sorted) {
+            scoreSum += score;
+        }
+
+        System.out.printf("games       %d on %d threads in %.2f s%n", games, threads, seconds);
+        System.out.printf("throughput  %.0f ticks/s, %.1f games/s%n", totalTicks / seconds, games / seconds);
+        System.out.printf("ticks/game  %.1f avg%n", totalTicks / (double) games);
+        System.out.printf("score       min %d  mean %.1f  p50 %d  p90 %d  p99 %d  max %d%n",
+                sorted[0], scoreSum / (double) games, percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 99), sorted[games - 1]);
+
+        // ten equal-width buckets between min and max score
+        int min = sorted[0];
+        int bucketWidth = Math.max(1, (sorted[games - 1] - min) / 10 + 1);
+        int[] buckets = new int[10];
+        for (int score : sorted) {
+            buckets[Math.min(9, (score - min) / bucketWidth)]++;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            int low = min + i * bucketWidth;
+            int barLength = (int) Math.round(40.0 * buckets[i] / games);
+            System.out.printf("  %6d-%-6d %7d %s%n", low, low + bucketWidth - 1, buckets[i], "#".repeat(barLength));
+        }
+    }
+
+    static int percentile(int[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 4) {
+            usage("too many arguments");
+        }
+        int games = positive(args, 0, "games", 10_000);
+        int maxTicks = positive(args, 1, "maxTicksPerGame", 20_000);
+        long seed = 1L;
+        if (args.length > 2) {
+            try {
+                seed = Long.parseLong(args[2]);
+            } catch (NumberFormatException e) {
+                usage("seed must be a whole number, got " + args[2]);
+            }
+        }
+        int threads = positive(args, 3, "threads", Runtime.getRuntime().availableProcessors());
+
+        //same intro length and lives as Normal difficulty (50 ms ticks, 3 lives)
+        BatchSimulator batch = new BatchSimulator(games, Simulation.introTicks(50), 3, maxTicks, seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        batch.run(pool);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        batch.report(elapsed, threads);
+    }
+
+    // args[index] if given, which has to be a whole number above zero
+    private static int positive(String[] args, int index, String name, int defaultValue) {
+        if (args.length <= index) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(args[index]);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        usage(name + " must be a whole number above zero, got " + args[index]);
+        return defaultValue;
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("usage: BatchSimulator [games] [maxTicksPerGame] [seed] [threads]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,34 @@
+package pacman;
+
+import java.awt.Dimension;
+
+// Which part of the board is on screen. Keeps its target in the middle of the view, stops at the
+// board's edges, and centres boards smaller than the view (x or y is then negative).
+public class Camera {
+    //the window never grows past this, larger boards scroll
+    static final int MAX_VIEW_WIDTH = 1024;
+    static final int MAX_VIEW_HEIGHT = 768;
+
+    int x; // board position of the view's top left corner
+    int y;
+    int viewWidth;
+    int viewHeight;
+
+    static Dimension viewSize(int boardWidth, int boardHeight) {
+        return new Dimension(Math.min(boardWidth, MAX_VIEW_WIDTH), Math.min(boardHeight, MAX_VIEW_HEIGHT));
+    }
+
+    void follow(int targetX, int targetY, int viewWidth, int viewHeight, int boardWidth, int boardHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        x = axis(targetX, viewWidth, boardWidth);
+        y = axis(targetY, viewHeight, boardHeight);
+    }
+
+    private static int axis(int target, int view, int board) {
+        if (board <= view) {
+            return -(view - board) / 2;
+        }
+        return Math.max(0, Math.min(board - view, target - view / 2));
+    }
+}
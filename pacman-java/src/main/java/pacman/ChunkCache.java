@@ -0,0 +1,106 @@
+package pacman;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// The static part of the board pre-rendered in square chunks, so a frame only blits the chunks
+// in view and the cost of drawing follows the screen size rather than the board size.
+// Chunks are painted the first time they are needed into a fixed pool of images. When the pool
+// is full the least recently drawn chunk gives up its image, which is repainted in place, so
+// scrolling round a huge maze neither allocates nor holds more than CAPACITY images.
+class ChunkCache {
+    static final int CHUNK_TILES = 8;
+    static final int CAPACITY = 64; //enough for the largest view (Camera.MAX_VIEW_*) several times over
+
+    interface Painter {
+        // draws the board area x, y, width, height into g, which is already translated to board coordinates
+        void paint(Graphics2D g, int x, int y, int width, int height);
+    }
+
+    final int chunkPixels;
+    private final Painter painter;
+    private final BufferedImage[] images = new BufferedImage[CAPACITY];
+    private final int[] chunkOfSlot = new int[CAPACITY];
+    private final long[] lastUsed = new long[CAPACITY];
+    private int[] slotOfChunk = new int[0]; // chunk index -> slot + 1, 0 when not cached
+    private long clock;
+    private int version = -1;
+    private int boardWidth;
+    private int boardHeight;
+    int chunkColumns;
+    int chunkRows;
+    int painted; // chunks painted so far, each one a cache miss
+
+    ChunkCache(int tileSize, Painter painter) {
+        this.chunkPixels = CHUNK_TILES * tileSize;
+        this.painter = painter;
+    }
+
+    // drops every cached chunk when the board changes
+    void update(int boardWidth, int boardHeight, int version) {
+        if (version == this.version) {
+            return;
+        }
+        this.version = version;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        chunkColumns = (boardWidth + chunkPixels - 1) / chunkPixels;
+        chunkRows = (boardHeight + chunkPixels - 1) / chunkPixels;
+        if (slotOfChunk.length < chunkColumns * chunkRows) {
+            slotOfChunk = new int[chunkColumns * chunkRows];
+        } else {
+            Arrays.fill(slotOfChunk, 0);
+        }
+        Arrays.fill(chunkOfSlot, -1);
+        Arrays.fill(lastUsed, 0);
+    }
+
+    // gc is only used to create compatible images the first time each slot is filled, may be null
+    BufferedImage get(int column, int row, GraphicsConfiguration gc) {
+        int chunk = row * chunkColumns + column;
+        int slot = slotOfChunk[chunk] - 1;
+        if (slot < 0) {
+            slot = leastRecentlyUsed();
+            if (chunkOfSlot[slot] >= 0) {
+                slotOfChunk[chunkOfSlot[slot]] = 0;
+            }
+            if (images[slot] == null) {
+                images[slot] = gc != null
+                        ? gc.createCompatibleImage(chunkPixels, chunkPixels, Transparency.OPAQUE)
+                        : new BufferedImage(chunkPixels, chunkPixels, BufferedImage.TYPE_INT_RGB);
+            }
+            paint(images[slot], column * chunkPixels, row * chunkPixels);
+            chunkOfSlot[slot] = chunk;
+            slotOfChunk[chunk] = slot + 1;
+            painted++;
+        }
+        lastUsed[slot] = ++clock;
+        return images[slot];
+    }
+
+    private int leastRecentlyUsed() {
+        int oldest = 0;
+        for (int slot = 1; slot < CAPACITY; slot++) {
+            if (lastUsed[slot] < lastUsed[oldest]) {
+                oldest = slot;
+            }
+        }
+        return oldest;
+    }
+
+    private void paint(BufferedImage image, int x, int y) {
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, chunkPixels, chunkPixels);
+        g.translate(-x, -y);
+        int width = Math.min(chunkPixels, boardWidth - x);
+        int height = Math.min(chunkPixels, boardHeight - y);
+        g.clipRect(x, y, width, height);
+        painter.paint(g, x, y, width, height);
+        g.dispose();
+    }
+}
@@ -0,0 +1,202 @@
+package pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Writes and applies the KEYFRAME and DELTA messages of NetProtocol. The server keeps one codec
+// per session holding what its clients were last sent, so each tick is encoded once and the same
+// bytes go to every client watching.
+class DeltaCodec {
+    private int[] x = new int[0]; // hero first, then the ghosts
+    private int[] y = new int[0];
+    private boolean[] frightened = new boolean[0];
+    private long[] pellets = new long[0];
+    private int levelVersion = -1;
+    private int levelHash;
+
+    // false once the session moved to another level, the next message has to be a keyframe
+    boolean sameLevel(Simulation sim) {
+        return sim.levelVersion == levelVersion;
+    }
+
+    // writes a KEYFRAME frame and takes the current state as what clients have
+    void keyframe(Simulation sim, ByteBuffer out) {
+        if (!sameLevel(sim)) {
+            int entities = sim.ghosts.count + 1;
+            x = new int[entities];
+            y = new int[entities];
+            frightened = new boolean[entities];
+            pellets = new long[sim.pelletBits.length];
+            levelVersion = sim.levelVersion;
+            levelHash = sim.level.hash();
+        }
+        int start = NetProtocol.beginFrame(out, NetProtocol.KEYFRAME);
+        out.putInt(sim.levelIndex);
+        out.putInt(levelHash);
+        sim.snapshot(out);
+        NetProtocol.endFrame(out, start);
+        remember(sim);
+    }
+
+    // room for a keyframe of the session's current level
+    static int keyframeBytes(Simulation sim) {
+        return NetProtocol.HEADER_BYTES + 8 + sim.snapshotSize();
+    }
+
+    private void remember(Simulation sim) {
+        x[0] = sim.hero.x;
+        y[0] = sim.hero.y;
+        EntityStore ghosts = sim.ghosts;
+        System.arraycopy(ghosts.x, 0, x, 1, ghosts.count);
+        System.arraycopy(ghosts.y, 0, y, 1, ghosts.count);
+        System.arraycopy(ghosts.frightened, 0, frightened, 1, ghosts.count);
+        System.arraycopy(sim.pelletBits, 0, pellets, 0, pellets.length);
+    }
+
+    // Writes a DELTA frame of what changed since the last keyframe or delta, on the same level.
+    // Returns false, writing nothing, when it would not fit; send a keyframe instead.
+    boolean delta(Simulation sim, ByteBuffer out) {
+        EntityStore ghosts = sim.ghosts;
+        int moved = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (changed(sim, ghosts, i)) {
+                moved++;
+            }
+        }
+        int toggled = 0;
+        long[] bits = sim.pelletBits;
+        for (int word = 0; word < bits.length; word++) {
+            toggled += Long.bitCount(bits[word] ^ pellets[word]);
+        }
+        //varints are at most 10 bytes, the per-entity and per-pellet ones at most 5
+        if (out.remaining() < NetProtocol.HEADER_BYTES + 4 * 10 + 1 + 2 * 5 + moved * 15 + toggled * 5) {
+            return false;
+        }
+
+        int start = NetProtocol.beginFrame(out, NetProtocol.DELTA);
+        NetProtocol.putVarint(out, sim.tick);
+        NetProtocol.putVarint(out, sim.score);
+        NetProtocol.putVarint(out, sim.lives);
+        out.put((byte) NetProtocol.flags(sim));
+
+        NetProtocol.putVarint(out, moved);
+        int previous = -1;
+        for (int i = 0; i < x.length; i++) {
+            if (!changed(sim, ghosts, i)) {
+                continue;
+            }
+            int newX = i == 0 ? sim.hero.x : ghosts.x[i - 1];
+            int newY = i == 0 ? sim.hero.y : ghosts.y[i - 1];
+            boolean scared = i > 0 && ghosts.frightened[i - 1];
+            NetProtocol.putVarint(out, (long) (i - previous - 1) << 1 | (scared ? 1 : 0));
+            NetProtocol.putVarint(out, NetProtocol.zigzag(newX - x[i]) & 0xFFFFFFFFL);
+            NetProtocol.putVarint(out, NetProtocol.zigzag(newY - y[i]) & 0xFFFFFFFFL);
+            x[i] = newX;
+            y[i] = newY;
+            frightened[i] = scared;
+            previous = i;
+        }
+
+        NetProtocol.putVarint(out, toggled);
+        int previousTile = -1;
+        for (int word = 0; word < bits.length; word++) {
+            long diff = bits[word] ^ pellets[word];
+            while (diff != 0) {
+                int tile = (word << 6) + Long.numberOfTrailingZeros(diff);
+                diff &= diff - 1;
+                NetProtocol.putVarint(out, tile - previousTile - 1);
+                previousTile = tile;
+            }
+            pellets[word] = bits[word];
+        }
+        NetProtocol.endFrame(out, start);
+        return true;
+    }
+
+    // entity i is the hero for 0, ghost i - 1 otherwise
+    private boolean changed(Simulation sim, EntityStore ghosts, int i) {
+        if (i == 0) {
+            return sim.hero.x != x[0] || sim.hero.y != y[0];
+        }
+        return ghosts.x[i - 1] != x[i] || ghosts.y[i - 1] != y[i] || ghosts.frightened[i - 1] != frightened[i];
+    }
+
+    // Applies a KEYFRAME payload to a client-side Simulation built on the same level pack,
+    // switching level first if needed. Returns false when the client's levels differ.
+    static boolean applyKeyframe(ByteBuffer in, Simulation sim) {
+        int levelIndex = in.getInt();
+        int levelHash = in.getInt();
+        if (levelIndex < 0 || levelIndex >= sim.levels.length || sim.levels[levelIndex].hash() != levelHash) {
+            return false;
+        }
+        if (sim.levelIndex != levelIndex || sim.level != sim.levels[levelIndex]) {
+            sim.levelIndex = levelIndex;
+            sim.loadLevel(sim.levels[levelIndex]);
+        }
+        sim.restore(in);
+        return true;
+    }
+
+    // applies a DELTA payload on top of the last keyframe or delta
+    static void applyDelta(ByteBuffer in, Simulation sim) {
+        sim.tick = NetProtocol.getVarint(in);
+        sim.score = (int) NetProtocol.getVarint(in);
+        sim.lives = (int) NetProtocol.getVarint(in);
+        int flags = in.get();
+        sim.scatterMode = (flags & 1) != 0;
+        sim.gameOver = (flags & 2) != 0;
+        if ((flags & 4) != 0) {
+            sim.timers.schedule(Simulation.INTRO_TIMER, sim.tick + 1);
+        } else {
+            sim.timers.cancel(Simulation.INTRO_TIMER);
+        }
+        sim.fruitIndex = ((flags >> 3) & 3) - 1;
+        sim.hero.direction = Simulation.DIRECTIONS[(flags >> 5) & 3];
+
+        Simulation.Entity hero = sim.hero;
+        EntityStore ghosts = sim.ghosts;
+        hero.prevX = hero.x;
+        hero.prevY = hero.y;
+        ghosts.savePositions();
+        int moved = (int) NetProtocol.getVarint(in);
+        int index = -1;
+        for (int k = 0; k < moved; k++) {
+            long head = NetProtocol.getVarint(in);
+            index += (int) (head >>> 1) + 1;
+            int dx = NetProtocol.unzigzag((int) NetProtocol.getVarint(in));
+            int dy = NetProtocol.unzigzag((int) NetProtocol.getVarint(in));
+            if (index == 0) {
+                hero.x += dx;
+                hero.y += dy;
+            } else {
+                ghosts.x[index - 1] += dx;
+                ghosts.y[index - 1] += dy;
+                ghosts.frightened[index - 1] = (head & 1) != 0;
+            }
+        }
+        int changed = (int) NetProtocol.getVarint(in);
+        int tile = -1;
+        for (int k = 0; k < changed; k++) {
+            tile += (int) NetProtocol.getVarint(in) + 1;
+            long mask = 1L << tile;
+            sim.pelletBits[tile >>> 6] ^= mask;
+            sim.pelletCount += (sim.pelletBits[tile >>> 6] & mask) != 0 ? 1 : -1;
+        }
+    }
+
+    // true when the two games show the same thing: positions, fright, pellets, score and lives
+    static boolean sameState(Simulation a, Simulation b) {
+        if (a.tick != b.tick || a.score != b.score || a.lives != b.lives || a.levelIndex != b.levelIndex
+                || a.hero.x != b.hero.x || a.hero.y != b.hero.y || a.ghosts.count != b.ghosts.count
+                || !Arrays.equals(a.pelletBits, b.pelletBits)) {
+            return false;
+        }
+        for (int i = 0; i < a.ghosts.count; i++) {
+            if (a.ghosts.x[i] != b.ghosts.x[i] || a.ghosts.y[i] != b.ghosts.y[i]
+                    || a.ghosts.frightened[i] != b.ghosts.frightened[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
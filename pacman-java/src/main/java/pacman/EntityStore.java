@@ -0,0 +1,120 @@
+package pacman;
+
+import java.util.Arrays;
+
+// The ghosts as parallel primitive arrays, one slot per ghost in the order the level lists them.
+// Per-tick loops walk contiguous ints instead of chasing one heap object per ghost, and slot
+// order is fixed, so every run visits the ghosts in the same order.
+public class EntityStore {
+    final int size; // every entity is one tile square
+    int count;
+
+    int[] x;
+    int[] y;
+    int[] prevX; // position at the start of the current tick, for interpolated drawing
+    int[] prevY;
+    int[] startX;
+    int[] startY;
+    int[] velocityX;
+    int[] velocityY;
+    byte[] direction; // index into Simulation.DIRECTIONS
+    byte[] sprite; // Simulation sprite id
+    boolean[] frightened;
+
+    EntityStore(int size, int capacity) {
+        this.size = size;
+        x = new int[capacity];
+        y = new int[capacity];
+        prevX = new int[capacity];
+        prevY = new int[capacity];
+        startX = new int[capacity];
+        startY = new int[capacity];
+        velocityX = new int[capacity];
+        velocityY = new int[capacity];
+        direction = new byte[capacity];
+        sprite = new byte[capacity];
+        frightened = new boolean[capacity];
+    }
+
+    int add(int sprite, int x, int y) {
+        if (count == this.x.length) {
+            int capacity = Math.max(4, count * 2);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            prevX = Arrays.copyOf(prevX, capacity);
+            prevY = Arrays.copyOf(prevY, capacity);
+            startX = Arrays.copyOf(startX, capacity);
+            startY = Arrays.copyOf(startY, capacity);
+            velocityX = Arrays.copyOf(velocityX, capacity);
+            velocityY = Arrays.copyOf(velocityY, capacity);
+            direction = Arrays.copyOf(direction, capacity);
+            this.sprite = Arrays.copyOf(this.sprite, capacity);
+            frightened = Arrays.copyOf(frightened, capacity);
+        }
+        int i = count++;
+        this.sprite[i] = (byte) sprite;
+        this.x[i] = x;
+        this.y[i] = y;
+        prevX[i] = x;
+        prevY[i] = y;
+        startX[i] = x;
+        startY[i] = y;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+        direction[i] = 0;
+        frightened[i] = false;
+        return i;
+    }
+
+    char direction(int i) {
+        return Simulation.DIRECTIONS[direction[i]];
+    }
+
+    // points entity i in a direction (a Simulation.DIRECTIONS index) at the given speed
+    void setDirection(int i, int code, int speed) {
+        direction[i] = (byte) code;
+        velocityX[i] = code == 2 ? -speed : code == 3 ? speed : 0;
+        velocityY[i] = code == 0 ? -speed : code == 1 ? speed : 0;
+    }
+
+    // moves entities from..to-1 one step along their velocity, no checks
+    void advance(int from, int to) {
+        for (int i = from; i < to; i++) {
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+        }
+    }
+
+    void savePositions() {
+        System.arraycopy(x, 0, prevX, 0, count);
+        System.arraycopy(y, 0, prevY, 0, count);
+    }
+
+    void reset(int i) {
+        x[i] = startX[i];
+        y[i] = startY[i];
+        prevX[i] = startX[i];
+        prevY[i] = startY[i];
+        frightened[i] = false;
+    }
+
+    // every entity back as add() left it
+    void restart() {
+        for (int i = 0; i < count; i++) {
+            reset(i);
+            velocityX[i] = 0;
+            velocityY[i] = 0;
+            direction[i] = 0;
+        }
+    }
+
+    // first entity at or after from whose square overlaps the size x size square at left, top, or -1
+    int firstOverlap(int from, int left, int top) {
+        for (int i = from; i < count; i++) {
+            if (x[i] < left + size && x[i] + size > left && y[i] < top + size && y[i] + size > top) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
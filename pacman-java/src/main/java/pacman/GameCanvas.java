@@ -0,0 +1,275 @@
+package pacman;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+
+// Actively rendered alternative to the PacMan panel. A dedicated thread steps the simulation
+// at a fixed timestep and draws through a BufferStrategy at the display's refresh rate,
+// interpolating entity positions between ticks. The EDT only queues input.
+public class GameCanvas extends Canvas implements Runnable, KeyListener, Simulation.Listener, SceneManager.GameScene {
+    private static final long MAX_FRAME_NANOS = 250_000_000L; //after a long stall, drop time instead of catching up
+
+    final Simulation sim;
+    private final GameRenderer renderer;
+    long tickNanos; // set before the loop thread starts
+    final long frameNanos;
+    Runnable quitAction;
+
+    private Thread loopThread;
+    private volatile boolean running;
+    //written by the EDT, read by the loop thread
+    private volatile char pendingInput = Simulation.NO_INPUT;
+    private volatile boolean restartRequested; // any key; the loop thread restarts only a finished game
+    int visualTick = 0;
+    private int fittedLevelVersion; // loop thread only
+    private Recording recording; // loop thread only, null unless -Dpacman.record is set
+    final PerfStats perf; // loop thread only
+    private volatile boolean showPerf; // F3, applied by the loop thread
+
+    GameCanvas(int tickMillis, int initialLives, Runnable quitAction) {
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.quitAction = quitAction;
+
+        long seed = System.nanoTime();
+        sim = new Simulation(Simulation.introTicks(tickMillis), initialLives, seed, this, Level.pack());
+        recording = Recording.start(sim, seed);
+        renderer = new GameRenderer(sim);
+        frameNanos = 1_000_000_000L / refreshRate();
+        perf = new PerfStats(frameNanos);
+
+        setPreferredSize(Camera.viewSize(sim.boardWidth, sim.boardHeight));
+        setBackground(Color.BLACK);
+        setIgnoreRepaint(true);
+        setFocusable(true);
+        addKeyListener(this);
+    }
+
+    private static int refreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return 60;
+        }
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : rate;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        start();
+    }
+
+    @Override
+    public void removeNotify() {
+        stop();
+        super.removeNotify();
+    }
+
+    // starts the loop thread unless it is running; it only runs while the canvas is displayable
+    void start() {
+        if (loopThread != null || !isDisplayable()) {
+            return;
+        }
+        running = true;
+        loopThread = new Thread(this, "pacman-loop");
+        loopThread.setDaemon(true);
+        loopThread.start();
+    }
+
+    // starts over at another tick rate and number of lives, keeping the canvas, its buffers and
+    // its renderer; called on the EDT, with the loop stopped while the game is reset
+    @Override
+    public void newGame(int tickMillis, int initialLives) {
+        stop();
+        saveRecording();
+        tickNanos = tickMillis * 1_000_000L;
+        perf.restart(frameNanos);
+        sim.introTicks = Simulation.introTicks(tickMillis);
+        sim.initialLives = initialLives;
+        long seed = System.nanoTime();
+        sim.restart(seed);
+        recording = Recording.start(sim, seed);
+        renderer.setHeroDirection('R'); // as a new renderer starts
+        pendingInput = Simulation.NO_INPUT;
+        restartRequested = false;
+        visualTick = 0;
+        start();
+    }
+
+    // returns once the loop thread has exited, so the caller has the game to itself
+    void stop() {
+        running = false;
+        Thread thread = loopThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            //a frame is short, but the game must not be touched while one is still running
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        loopThread = null;
+    }
+
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        while (running) {
+            long frameStart = System.nanoTime();
+            perf.frameStarted(frameStart);
+            accumulator += Math.min(frameStart - previous, MAX_FRAME_NANOS);
+            previous = frameStart;
+
+            while (accumulator >= tickNanos) {
+                long tickStart = System.nanoTime();
+                tick();
+                perf.tickTime(System.nanoTime() - tickStart);
+                accumulator -= tickNanos;
+            }
+            //frozen at the last tick once the game is over, like the panel's stopped timer
+            float alpha = sim.gameOver ? 1f : accumulator / (float) tickNanos;
+            renderer.overlay = showPerf ? perf : null;
+            long renderStart = System.nanoTime();
+            renderFrame(alpha);
+            perf.renderTime(System.nanoTime() - renderStart);
+
+            long sleep = frameNanos - (System.nanoTime() - frameStart);
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            }
+        }
+    }
+
+    private void tick() {
+        if (restartRequested) {
+            restartRequested = false;
+            if (sim.gameOver) {
+                long seed = System.nanoTime();
+                sim.restart(seed);
+                recording = Recording.start(sim, seed);
+                renderer.setHeroDirection('R');
+            }
+        }
+        char input = pendingInput;
+        pendingInput = Simulation.NO_INPUT;
+        if (sim.gameOver) {
+            return;
+        }
+        sim.step(input);
+        if (sim.levelVersion != fittedLevelVersion) {
+            fittedLevelVersion = sim.levelVersion;
+            Dimension view = Camera.viewSize(sim.boardWidth, sim.boardHeight);
+            SwingUtilities.invokeLater(() -> fitBoard(view));
+        }
+        if (input != Simulation.NO_INPUT) {
+            renderer.setHeroDirection(sim.hero.direction);
+        }
+        visualTick++;
+        if (sim.gameOver) {
+            saveRecording();
+        }
+    }
+
+    private void saveRecording() {
+        if (recording != null) {
+            recording.save(sim);
+            recording = null;
+        }
+    }
+
+    // levels in a pack can differ in size, the view shrinks to small ones and scrolls over big ones
+    private void fitBoard(Dimension view) {
+        if (view.equals(getPreferredSize())) {
+            return;
+        }
+        setPreferredSize(view);
+        Window window = SwingUtilities.getWindowAncestor(this);
+        if (window != null) {
+            window.pack();
+        }
+    }
+
+    private void renderFrame(float alpha) {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.render(g2, getGraphicsConfiguration(), getWidth(), getHeight(), visualTick, alpha);
+                } finally {
+                    g2.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    @Override
+    public void onRoundStart() {
+        Audio.shared().play(Audio.Sound.START);
+    }
+
+    @Override
+    public void onHeroHit() {
+        Audio.shared().play(Audio.Sound.HIT);
+    }
+
+    @Override
+    public void onGameOver() {
+        Audio.shared().play(Audio.Sound.GAME_OVER);
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {}
+
+    @Override
+    public void keyPressed(KeyEvent e) {}
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_Q) {
+            stop(); //joins the loop thread, so the recording is safe to touch here
+            saveRecording();
+            if (quitAction != null) {
+                quitAction.run();
+            } else {
+                Window window = SwingUtilities.getWindowAncestor(this);
+                if (window != null) {
+                    window.dispose();
+                }
+            }
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            showPerf = !showPerf;
+            return;
+        }
+
+        //only the loop thread knows whether the game is over
+        restartRequested = true;
+        if (e.getKeyCode() == KeyEvent.VK_UP) {
+            pendingInput = 'U';
+        } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+            pendingInput = 'D';
+        } else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+            pendingInput = 'L';
+        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+            pendingInput = 'R';
+        }
+    }
+}
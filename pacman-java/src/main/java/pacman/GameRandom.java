@@ -0,0 +1,38 @@
+package pacman;
+
+import java.util.Random;
+
+// The same 48-bit LCG as java.util.Random, so a seed gives exactly the sequence it always did,
+// but with the state in a plain field that snapshots can read and write. Not thread safe, each
+// Simulation owns one.
+public class GameRandom extends Random {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // no initialiser: Random's constructor sets it through setSeed
+
+    GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    long state() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+}
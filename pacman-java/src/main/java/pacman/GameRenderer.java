@@ -0,0 +1,341 @@
+package pacman;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Draws a Simulation. Shared by the Swing PacMan panel and the actively rendered GameCanvas.
+public class GameRenderer {
+    //render() runs every frame, so everything it draws with is created once up front
+    private static final Color BACKGROUND_TOP = new Color(8, 8, 26);
+    private static final Color BACKGROUND_BOTTOM = new Color(18, 6, 48);
+    private static final Color GRID_COLOR = new Color(120, 180, 255, 18);
+    private static final Color WALL_FILL = new Color(70, 180, 255, 52);
+    private static final Color WALL_EDGE = new Color(125, 235, 255, 120);
+    private static final Color SCANLINE_COLOR = new Color(130, 255, 255, 28);
+    private static final Color PELLET_GLOW = new Color(255, 245, 190, 70);
+    private static final Color PELLET_COLOR = new Color(255, 230, 160);
+    private static final Color HUD_PANEL = new Color(5, 7, 20, 210);
+    private static final Color HUD_BORDER = new Color(100, 225, 255, 110);
+    private static final Color HUD_SHADOW = new Color(0, 0, 0, 180);
+    private static final Color HUD_TEXT = new Color(255, 230, 92);
+    private static final Color HUD_GAME_OVER_TEXT = new Color(255, 96, 96);
+    private static final Color READY_PANEL = new Color(0, 0, 0, 185);
+    private static final Color READY_SHADOW = new Color(255, 255, 255, 90);
+    private static final Color READY_TEXT_COLOR = new Color(255, 225, 70);
+    private static final Font HUD_FONT = new Font("Monospaced", Font.BOLD, 16);
+    private static final Font READY_FONT = new Font("Monospaced", Font.BOLD, 34);
+    private static final String READY_TEXT = "READY!";
+    private static final Font PERF_FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private static final Color PERF_TEXT = new Color(140, 255, 170);
+    //where the perf overlay sits, under the HUD
+    static final int PERF_X = 6;
+    static final int PERF_Y = 44;
+    static final int PERF_WIDTH = 330;
+    static final int PERF_LINE_HEIGHT = 15;
+
+    //atlas sprite for each Simulation sprite id
+    private static final int[] SIM_SPRITES = {
+        SpriteAtlas.PACMAN_RIGHT, SpriteAtlas.BLUE_GHOST, SpriteAtlas.ORANGE_GHOST, SpriteAtlas.PINK_GHOST,
+        SpriteAtlas.RED_GHOST, SpriteAtlas.SCARED_GHOST, SpriteAtlas.CHERRY, SpriteAtlas.CHERRY2
+    };
+    //pellets pulse between two sprites, four visual ticks each; power pellets and flashing ghosts go with them
+    private static final int[] PULSE = AnimationClock.squareTable(8, 0, 1);
+    private static final int[] PELLET_GLOW_SIZES = {4, 2};
+    private static final int[] POWER_SPRITES = {SpriteAtlas.POWER_FOOD, SpriteAtlas.POWER_FOOD_SMALL};
+
+    private final Simulation sim;
+    private final SpriteAtlas atlas;
+    private int heroSprite = SpriteAtlas.PACMAN_RIGHT;
+    final Camera camera = new Camera();
+    final ChunkCache mazeChunks;
+    private String hudText;
+    private int hudScore = -1;
+    private boolean hudGameOver;
+    private int readyTextWidth = -1;
+    private BufferedImage[] pelletSprites;
+    private BufferedImage hudPanel;
+    private BufferedImage readyPanel;
+    private final Rectangle clipBounds = new Rectangle();
+    PerfStats overlay; // drawn over the game when set, F3 in the views
+
+    GameRenderer(Simulation sim) {
+        this.sim = sim;
+
+        //shared by every renderer with this tile size, so only the first game start loads anything
+        atlas = SpriteAtlas.forTileSize(sim.tileSize);
+        pelletSprites = new BufferedImage[PELLET_GLOW_SIZES.length];
+        for (int i = 0; i < PELLET_GLOW_SIZES.length; i++) {
+            pelletSprites[i] = pelletSprite(PELLET_GLOW_SIZES[i]);
+        }
+        mazeChunks = new ChunkCache(sim.tileSize, this::paintMaze);
+    }
+
+    void setHeroDirection(char direction) {
+        if (direction == 'U') {
+            heroSprite = SpriteAtlas.PACMAN_UP;
+        } else if (direction == 'D') {
+            heroSprite = SpriteAtlas.PACMAN_DOWN;
+        } else if (direction == 'L') {
+            heroSprite = SpriteAtlas.PACMAN_LEFT;
+        } else if (direction == 'R') {
+            heroSprite = SpriteAtlas.PACMAN_RIGHT;
+        }
+    }
+
+    // Draws the view of the board that follows the hero. gc is null when drawing offscreen;
+    // alpha is how far the frame is between the last tick and the next, 0..1
+    public void render(Graphics2D g2, GraphicsConfiguration gc, int viewWidth, int viewHeight, int visualTick, float alpha) {
+        if (viewWidth <= 0 || viewHeight <= 0) {
+            return; //not laid out yet
+        }
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int tileSize = sim.tileSize;
+        Simulation.Entity hero = sim.hero;
+        followHero(viewWidth, viewHeight, alpha);
+        int cameraX = camera.x;
+        int cameraY = camera.y;
+
+        clipBounds.setBounds(0, 0, viewWidth, viewHeight);
+        g2.getClipBounds(clipBounds);
+        if (cameraX < 0 || cameraY < 0) {
+            //board smaller than the view, clear the margins around it
+            g2.setColor(Color.BLACK);
+            g2.fillRect(clipBounds.x, clipBounds.y, clipBounds.width, clipBounds.height);
+        }
+        //everything up to the HUD is drawn in board coordinates
+        g2.translate(-cameraX, -cameraY);
+        clipBounds.translate(cameraX, cameraY);
+
+        drawMaze(g2, gc);
+
+        int scanY = (visualTick * 4) % viewHeight;
+        g2.setColor(SCANLINE_COLOR);
+        g2.fillRect(cameraX, cameraY + scanY, viewWidth, 3);
+
+        int pulse = pulseFrame(visualTick);
+        BufferedImage pelletSprite = pelletSprites[pulse];
+        int powerSprite = POWER_SPRITES[pulse];
+        int powerOffset = (tileSize - atlas.size(powerSprite)) / 2;
+        int spriteOffset = sim.pelletOffset - 2;
+        //only the part of each row inside the clip, so the cost follows the view and not the board
+        int columnCount = sim.columnCount;
+        int firstRow = Math.max(0, Math.floorDiv(clipBounds.y, tileSize));
+        int lastRow = Math.min(sim.rowCount - 1, (clipBounds.y + clipBounds.height) / tileSize);
+        int firstCol = Math.max(0, Math.floorDiv(clipBounds.x, tileSize));
+        int lastCol = Math.min(columnCount - 1, (clipBounds.x + clipBounds.width) / tileSize);
+        for (int row = firstRow; row <= lastRow && firstCol <= lastCol; row++) {
+            int rowStart = row * columnCount;
+            int first = rowStart + firstCol;
+            int last = rowStart + lastCol;
+            for (int word = first >>> 6; word <= last >>> 6; word++) {
+                long bits = sim.pelletBits[word];
+                if (word == first >>> 6) {
+                    bits &= -1L << first;
+                }
+                if (word == last >>> 6) {
+                    bits &= -1L >>> (63 - (last & 63));
+                }
+                while (bits != 0) {
+                    int tile = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if ((sim.powerBits[word] & (1L << tile)) != 0) {
+                        atlas.draw(g2, powerSprite, (tile - rowStart) * tileSize + powerOffset, row * tileSize + powerOffset);
+                        continue;
+                    }
+                    int pelletX = (tile - rowStart) * tileSize + spriteOffset;
+                    int pelletY = row * tileSize + spriteOffset;
+                    g2.drawImage(pelletSprite, pelletX, pelletY, null);
+                }
+            }
+        }
+
+        if (sim.fruitIndex >= 0) {
+            int fruitX = (sim.fruitTile % columnCount) * tileSize;
+            int fruitY = (sim.fruitTile / columnCount) * tileSize;
+            atlas.draw(g2, SIM_SPRITES[Simulation.FRUIT_SPRITES[sim.fruitIndex]], fruitX, fruitY);
+        }
+
+        //frightened ghosts flash back to their colours as the fright runs out
+        long frightLeft = sim.timers.remaining(Simulation.FRIGHT_TIMER, sim.tick);
+        boolean flash = frightLeft < Simulation.FRIGHT_WARNING_TICKS && pulse == 0;
+        //between ticks entities are drawn part way from their previous position
+        EntityStore ghosts = sim.ghosts;
+        for (int i = 0; i < ghosts.count; i++) {
+            int x = lerp(ghosts.prevX[i], ghosts.x[i], alpha);
+            int y = lerp(ghosts.prevY[i], ghosts.y[i], alpha);
+            if (x + tileSize > clipBounds.x && x < clipBounds.x + clipBounds.width
+                    && y + tileSize > clipBounds.y && y < clipBounds.y + clipBounds.height) {
+                int sprite = ghosts.frightened[i] && !flash ? Simulation.SCARED_GHOST : ghosts.sprite[i];
+                atlas.draw(g2, SIM_SPRITES[sprite], x, y);
+            }
+        }
+        atlas.draw(g2, heroSprite, lerp(hero.prevX, hero.x, alpha), lerp(hero.prevY, hero.y, alpha));
+        g2.translate(cameraX, cameraY);
+
+        if (hudPanel == null || hudPanel.getWidth() != viewWidth - 12) {
+            hudPanel = new BufferedImage(viewWidth - 12, 34, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D panel = hudPanel.createGraphics();
+            panel.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            panel.setColor(HUD_PANEL);
+            panel.fillRoundRect(2, 2, viewWidth - 16, 30, 10, 10);
+            panel.setColor(HUD_BORDER);
+            panel.drawRoundRect(2, 2, viewWidth - 16, 30, 10, 10);
+            panel.dispose();
+        }
+        g2.drawImage(hudPanel, 6, 4, null);
+
+        g2.setFont(HUD_FONT);
+        //only rebuilt when what it shows changes
+        if (hudText == null || hudScore != sim.score || hudGameOver != sim.gameOver) {
+            hudScore = sim.score;
+            hudGameOver = sim.gameOver;
+            hudText = sim.gameOver
+                ? "GAME OVER   SCORE " + sim.score + "   PRESS ANY KEY"
+                : "SCORE " + sim.score + "   Q MENU";
+        }
+
+        int hudX = 20;
+        int hudY = 27;
+        g2.setColor(HUD_SHADOW);
+        g2.drawString(hudText, hudX + 2, hudY + 2);
+        g2.setColor(sim.gameOver ? HUD_GAME_OVER_TEXT : HUD_TEXT);
+        g2.drawString(hudText, hudX, hudY);
+
+        int livesStartX = viewWidth - 22 - (sim.lives * 20);
+        for (int i = 0; i < sim.lives; i++) {
+            atlas.draw(g2, SpriteAtlas.LIVES_ICON, livesStartX + (i * 20), 12);
+        }
+
+        if (!sim.gameOver && sim.inIntro()) {
+            g2.setFont(READY_FONT);
+            if (readyTextWidth < 0) {
+                readyTextWidth = g2.getFontMetrics().stringWidth(READY_TEXT);
+                readyPanel = new BufferedImage(readyTextWidth + 48, 52, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D panel = readyPanel.createGraphics();
+                panel.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                panel.setColor(READY_PANEL);
+                panel.fillRoundRect(0, 0, readyTextWidth + 48, 52, 10, 10);
+                panel.dispose();
+            }
+            int textX = (viewWidth - readyTextWidth) / 2;
+            int textY = (viewHeight / 2) + 10;
+
+            g2.drawImage(readyPanel, textX - 24, textY - 38, null);
+
+            g2.setColor(READY_SHADOW);
+            g2.drawString(READY_TEXT, textX + 2, textY + 2);
+            g2.setColor(READY_TEXT_COLOR);
+            g2.drawString(READY_TEXT, textX, textY);
+        }
+
+        if (overlay != null) {
+            drawOverlay(g2, overlay.lines);
+        }
+    }
+
+    // which pulse sprite pellets show at a visual tick
+    static int pulseFrame(int visualTick) {
+        return AnimationClock.at(PULSE, visualTick);
+    }
+
+    static int overlayHeight(int lineCount) {
+        return lineCount * PERF_LINE_HEIGHT + 10;
+    }
+
+    private void drawOverlay(Graphics2D g2, String[] lines) {
+        g2.setColor(HUD_PANEL);
+        g2.fillRect(PERF_X, PERF_Y, PERF_WIDTH, overlayHeight(lines.length));
+        g2.setColor(HUD_BORDER);
+        g2.drawRect(PERF_X, PERF_Y, PERF_WIDTH, overlayHeight(lines.length));
+        g2.setFont(PERF_FONT);
+        g2.setColor(PERF_TEXT);
+        for (int i = 0; i < lines.length; i++) {
+            g2.drawString(lines[i], PERF_X + 8, PERF_Y + 5 + (i + 1) * PERF_LINE_HEIGHT - 3);
+        }
+    }
+
+    // points the camera at the hero as drawn at alpha, render() does this itself and views
+    // that need to know where the camera will be can call it first
+    void followHero(int viewWidth, int viewHeight, float alpha) {
+        Simulation.Entity hero = sim.hero;
+        int half = sim.tileSize / 2;
+        camera.follow(lerp(hero.prevX, hero.x, alpha) + half, lerp(hero.prevY, hero.y, alpha) + half,
+                viewWidth, viewHeight, sim.boardWidth, sim.boardHeight);
+    }
+
+    private static int lerp(int from, int to, float alpha) {
+        return from + Math.round((to - from) * alpha);
+    }
+
+    // background, grid and walls only change when a level is parsed, so they come from the chunk
+    // cache and only the chunks overlapping the clip are blitted
+    private void drawMaze(Graphics2D g2, GraphicsConfiguration gc) {
+        mazeChunks.update(sim.boardWidth, sim.boardHeight, sim.levelVersion);
+        int size = mazeChunks.chunkPixels;
+        int firstCol = Math.max(0, Math.floorDiv(clipBounds.x, size));
+        int lastCol = Math.min(mazeChunks.chunkColumns - 1, (clipBounds.x + clipBounds.width - 1) / size);
+        int firstRow = Math.max(0, Math.floorDiv(clipBounds.y, size));
+        int lastRow = Math.min(mazeChunks.chunkRows - 1, (clipBounds.y + clipBounds.height - 1) / size);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                g2.drawImage(mazeChunks.get(col, row, gc), col * size, row * size, null);
+            }
+        }
+    }
+
+    // pellet plus its glow for one pulse size, with a 2px margin around the pellet for the largest glow
+    private BufferedImage pelletSprite(int pulseSize) {
+        int pelletSize = sim.pelletSize;
+        BufferedImage sprite = new BufferedImage(pelletSize + 4, pelletSize + 4, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = sprite.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(PELLET_GLOW);
+        g2.fillOval(2 - pulseSize / 2, 2 - pulseSize / 2, pelletSize + pulseSize, pelletSize + pulseSize);
+        g2.setColor(PELLET_COLOR);
+        g2.fillOval(2, 2, pelletSize, pelletSize);
+        g2.dispose();
+        return sprite;
+    }
+
+    // paints one chunk's part of the board: background, grid and walls
+    private void paintMaze(Graphics2D g2, int x, int y, int width, int height) {
+        int tileSize = sim.tileSize;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        GradientPaint bgGradient = new GradientPaint(
+                0,
+                0,
+                BACKGROUND_TOP,
+                0,
+                sim.boardHeight,
+                BACKGROUND_BOTTOM
+        );
+        g2.setPaint(bgGradient);
+        g2.fillRect(x, y, width, height);
+
+        //chunks start on tile boundaries
+        g2.setColor(GRID_COLOR);
+        for (int lineX = x; lineX < x + width; lineX += tileSize) {
+            g2.drawLine(lineX, y, lineX, y + height);
+        }
+        for (int lineY = y; lineY < y + height; lineY += tileSize) {
+            g2.drawLine(x, lineY, x + width, lineY);
+        }
+
+        for (int row = y / tileSize; row < (y + height) / tileSize; row++) {
+            for (int col = x / tileSize; col < (x + width) / tileSize; col++) {
+                if (!sim.wallGrid[row * sim.columnCount + col]) {
+                    continue;
+                }
+                int wallX = col * tileSize;
+                int wallY = row * tileSize;
+                atlas.draw(g2, SpriteAtlas.WALL, wallX, wallY);
+                g2.setColor(WALL_FILL);
+                g2.fillRoundRect(wallX + 2, wallY + 2, tileSize - 4, tileSize - 4, 6, 6);
+                g2.setColor(WALL_EDGE);
+                g2.drawRoundRect(wallX + 1, wallY + 1, tileSize - 3, tileSize - 3, 6, 6);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package pacman;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Headless server running game sessions authoritatively for networked players and spectators.
+// One thread owns everything: a single Selector accepts connections and reads input, and between
+// selects every session steps at a fixed tick. Each tick is encoded once per session, as a
+// DELTA or a KEYFRAME (see NetProtocol), and the same bytes are queued to every client in it.
+// A client whose socket cannot take them is skipped and catches up with a keyframe later.
+// Run with: java -cp target/classes pacman.GameServer [port] [tickMillis]
+public class GameServer implements Runnable {
+    static final int DEFAULT_PORT = 7777;
+    static final int OUTBOX_BYTES = 64 * 1024; // per client, about three seconds of deltas
+    static final int MAX_SESSIONS = 10_000;
+    static final int RESTART_TICKS = 60; // a finished game shows its end this long before restarting
+
+    final ServerSocketChannel server;
+    final Selector selector;
+    final long tickNanos;
+    final int introTicks;
+    final Level[] levels;
+    final List<Session> sessions = new ArrayList<Session>();
+    int maxSessions = MAX_SESSIONS; // a HELLO for a new session past this many is turned away
+    final LatencyHistogram tickTimes = new LatencyHistogram(); // all sessions, encoding and queueing
+    long ticks;
+    long bytesQueued;
+    long framesDropped;
+    private volatile boolean running = true;
+
+    GameServer(int port, int tickMillis, Level[] levels) throws IOException {
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.introTicks = Simulation.introTicks(tickMillis);
+        this.levels = levels;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    int port() {
+        return server.socket().getLocalPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int tickMillis = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        GameServer gameServer = new GameServer(port, tickMillis, Level.pack());
+        System.out.println("serving on port " + gameServer.port());
+        gameServer.run();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Client client = (Client) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                client.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                client.flush();
+                            }
+                        } catch (RuntimeException e) {
+                            //whatever one client's messages trip over drops that client, not the server
+                            System.err.println("dropping client: " + e);
+                            client.close();
+                        }
+                    }
+                }
+                long now = System.nanoTime();
+                if (now >= nextTick) {
+                    tick();
+                    tickTimes.record(System.nanoTime() - now);
+                    //after a stall, carry on from now rather than running the missed ticks back to back
+                    nextTick = Math.max(nextTick + tickNanos, now);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("server stopped: " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Client client = new Client(channel);
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        }
+    }
+
+    private void tick() {
+        ticks++;
+        //backwards, as a session whose last client drops out during its tick removes itself
+        for (int i = sessions.size() - 1; i >= 0; i--) {
+            sessions.get(i).tick();
+        }
+    }
+
+    Session session(int id) {
+        for (Session session : sessions) {
+            if (session.id == id) {
+                return session;
+            }
+        }
+        if (sessions.size() >= maxSessions) {
+            return null;
+        }
+        Session session = new Session(id);
+        sessions.add(session);
+        return session;
+    }
+
+    // One authoritative game and everyone connected to it, dropped when the last client leaves.
+    class Session {
+        final int id;
+        final Simulation sim;
+        final List<Client> clients = new ArrayList<Client>();
+        final DeltaCodec codec = new DeltaCodec();
+        char input = Simulation.NO_INPUT; // latest from any player since the last tick
+        int overTicks;
+        int games;
+        long broadcasts;
+        private ByteBuffer frame = ByteBuffer.allocate(0);
+        private ByteBuffer keyframe = ByteBuffer.allocate(0);
+        private long keyframeTick = -1;
+
+        Session(int id) {
+            this.id = id;
+            sim = new Simulation(introTicks, 3, seed(0), null, levels);
+        }
+
+        private long seed(int game) {
+            return (long) id << 32 | game;
+        }
+
+        void tick() {
+            if (sim.gameOver) {
+                if (++overTicks >= RESTART_TICKS) {
+                    overTicks = 0;
+                    sim.restart(seed(++games));
+                }
+            } else {
+                sim.step(input);
+            }
+            input = Simulation.NO_INPUT;
+
+            //a periodic keyframe follows that tick's delta, so clients can also check their state against it
+            boolean wrote = false;
+            if (codec.sameLevel(sim)) {
+                ensureCapacity(DeltaCodec.keyframeBytes(sim));
+                frame.clear();
+                wrote = codec.delta(sim, frame);
+                frame.flip();
+            }
+            boolean refresh = !wrote || ++broadcasts % NetProtocol.KEYFRAME_TICKS == 0;
+            if (refresh) {
+                keyframe();
+            }
+            //backwards, as a client whose write fails removes itself and must not make the next one be skipped
+            for (int i = clients.size() - 1; i >= 0; i--) {
+                Client client = clients.get(i);
+                if (client.needsKeyframe) {
+                    //missed a frame or never had a keyframe, deltas are no use to it until it gets one
+                    keyframe();
+                    client.needsKeyframe = !client.send(keyframe);
+                } else if (wrote && !client.send(frame) || refresh && !client.send(keyframe)) {
+                    client.needsKeyframe = true;
+                }
+            }
+        }
+
+        // the keyframe for the current tick, encoded at most once per tick
+        private void keyframe() {
+            if (keyframeTick == sim.tick && codec.sameLevel(sim)) {
+                return;
+            }
+            int size = DeltaCodec.keyframeBytes(sim);
+            if (keyframe.capacity() < size) {
+                keyframe = ByteBuffer.allocate(size);
+            }
+            keyframe.clear();
+            codec.keyframe(sim, keyframe);
+            keyframe.flip();
+            keyframeTick = sim.tick;
+        }
+
+        private void ensureCapacity(int size) {
+            if (frame.capacity() < size) {
+                frame = ByteBuffer.allocate(size);
+            }
+        }
+    }
+
+    // One connection, in a session once it has said HELLO.
+    class Client {
+        final SocketChannel channel;
+        SelectionKey key;
+        final ByteBuffer inbox = ByteBuffer.allocate(256);
+        final ByteBuffer outbox = ByteBuffer.allocate(OUTBOX_BYTES);
+        Session session;
+        boolean player;
+        boolean needsKeyframe = true;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            try {
+                if (channel.read(inbox) < 0) {
+                    close();
+                    return;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            inbox.flip();
+            //handling a frame can close the client, the frames after it are then dropped
+            while (channel.isOpen() && inbox.remaining() >= NetProtocol.HEADER_BYTES) {
+                int length = inbox.getInt(inbox.position());
+                if (length < 1 || length > inbox.capacity() - 4) {
+                    close(); // nothing a client sends is this big
+                    return;
+                }
+                if (inbox.remaining() < 4 + length) {
+                    break;
+                }
+                int end = inbox.position() + 4 + length;
+                inbox.getInt();
+                handle(inbox.get(), end);
+                inbox.position(end);
+            }
+            inbox.compact();
+        }
+
+        private void handle(int type, int end) {
+            if (type == NetProtocol.HELLO && session == null && end - inbox.position() >= 5) {
+                session = session(inbox.getInt());
+                if (session == null) {
+                    close(); // the server is full
+                    return;
+                }
+                player = inbox.get() == NetProtocol.PLAYER;
+                session.clients.add(this);
+            } else if (type == NetProtocol.INPUT && player && end > inbox.position()) {
+                char direction = (char) inbox.get();
+                if (direction == 'U' || direction == 'D' || direction == 'L' || direction == 'R') {
+                    session.input = direction;
+                }
+            } else if (type == NetProtocol.PING && end - inbox.position() >= 8) {
+                long clientTime = inbox.getLong();
+                if (outbox.remaining() >= NetProtocol.HEADER_BYTES + 8) {
+                    int start = NetProtocol.beginFrame(outbox, NetProtocol.PONG);
+                    outbox.putLong(clientTime);
+                    NetProtocol.endFrame(outbox, start);
+                    flush();
+                }
+            }
+        }
+
+        // queues a whole frame and tries to write it, false when there is no room for it
+        boolean send(ByteBuffer frame) {
+            if (!channel.isOpen()) {
+                return true;
+            }
+            if (outbox.remaining() < frame.remaining()) {
+                framesDropped++;
+                return false;
+            }
+            bytesQueued += frame.remaining();
+            outbox.put(frame.duplicate());
+            flush();
+            return true;
+        }
+
+        void flush() {
+            outbox.flip();
+            try {
+                channel.write(outbox);
+            } catch (IOException e) {
+                outbox.clear();
+                close();
+                return;
+            }
+            boolean pending = outbox.hasRemaining();
+            outbox.compact();
+            if (key.isValid()) {
+                key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            if (session != null) {
+                session.clients.remove(this);
+                if (session.clients.isEmpty()) {
+                    sessions.remove(session);
+                }
+                session = null;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pacman;
+
+import java.util.Arrays;
+
+// Fixed-size log-linear histogram of nanosecond durations, in the style of HdrHistogram: each
+// power of two is split into 32 linear buckets, so a recorded value keeps about 3% precision
+// from nanoseconds up to minutes. Recording is a couple of shifts and an increment and never
+// allocates; percentiles walk the buckets.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    //values past 2^40 ns (about 18 minutes) land in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) << SUB_BITS;
+
+    private final long[] counts = new long[BUCKETS];
+    long count;
+    long max;
+    long total;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // largest value that falls in a bucket
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long low = (long) ((bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    // value at or below which the given percentage of recorded values fall, 0 when empty
+    long percentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                //the last bucket also holds everything past its range, the max is the best bound for it
+                return i == BUCKETS - 1 ? max : Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    long mean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+}
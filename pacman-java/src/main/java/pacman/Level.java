@@ -0,0 +1,226 @@
+package pacman;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// A maze as a grid of tiles, using the characters of Simulation.DEFAULT_LAYOUT whatever the source.
+//
+// Two file formats:
+//   .txt  one line per row in the character format
+//   .lvl  magic "PMLV", version byte, columns and rows (ints, big-endian), then 4 bits per tile
+//         in row-major order, high nibble first, coded as the index into CODES. Codes past the
+//         end of CODES read as empty tiles, so files using later codes still open in older builds.
+// Binary levels are read in place through a MappedByteBuffer, so opening one costs nothing
+// up front however large it is; the tiles are only touched when Simulation parses the level.
+public abstract class Level {
+    static final int MAGIC = 0x504d4c56;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 13;
+    static final String TEXT_EXTENSION = ".txt";
+    static final String BINARY_EXTENSION = ".lvl";
+    static final char[] CODES = {' ', 'X', 'O', 'P', 'b', 'o', 'p', 'r', '*', 'f'};
+    //-Dpacman.levels=<dir> plays every level file in that directory in name order
+    static final String DIRECTORY = System.getProperty("pacman.levels");
+
+    static final Level DEFAULT = of("default", Simulation.DEFAULT_LAYOUT);
+
+    private static Level[] pack;
+
+    final String name;
+    final int rowCount;
+    final int columnCount;
+
+    Level(String name, int rowCount, int columnCount) {
+        if ((long) rowCount * columnCount > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException(name + ": " + columnCount + "x" + rowCount + " is too many tiles");
+        }
+        this.name = name;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+    }
+
+    abstract char tile(int row, int col);
+
+    static Level of(String name, String[] layout) {
+        return new TextLevel(name, layout);
+    }
+
+    // the levels to play: the files in DIRECTORY if set, otherwise just the default maze.
+    // Loaded once and shared by every game in the process.
+    static synchronized Level[] pack() {
+        if (pack == null) {
+            try {
+                pack = DIRECTORY == null ? new Level[] {DEFAULT} : loadPack(Path.of(DIRECTORY));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load levels from " + DIRECTORY, e);
+            }
+        }
+        return pack;
+    }
+
+    static Level[] loadPack(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(f -> f.toString().endsWith(TEXT_EXTENSION) || f.toString().endsWith(BINARY_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        if (files.isEmpty()) {
+            throw new IOException("no " + TEXT_EXTENSION + " or " + BINARY_EXTENSION + " files in " + directory);
+        }
+        Level[] levels = new Level[files.size()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = load(files.get(i));
+        }
+        return levels;
+    }
+
+    static Level load(Path file) throws IOException {
+        if (file.toString().endsWith(BINARY_EXTENSION)) {
+            return MappedLevel.open(file);
+        }
+        List<String> lines = new ArrayList<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        if (lines.isEmpty()) {
+            throw new IOException(file + " is empty");
+        }
+        for (int r = 1; r < lines.size(); r++) {
+            if (lines.get(r).length() != lines.get(0).length()) {
+                throw new IOException(file + ": row " + r + " has " + lines.get(r).length()
+                        + " tiles, expected " + lines.get(0).length());
+            }
+        }
+        return of(file.getFileName().toString(), lines.toArray(new String[0]));
+    }
+
+    void writeText(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            char[] row = new char[columnCount];
+            for (int r = 0; r < rowCount; r++) {
+                for (int c = 0; c < columnCount; c++) {
+                    row[c] = tile(r, c);
+                }
+                out.write(row);
+                out.write('\n');
+            }
+        }
+    }
+
+    void writeBinary(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(columnCount);
+            out.writeInt(rowCount);
+            int pending = -1;
+            for (int r = 0; r < rowCount; r++) {
+                for (int c = 0; c < columnCount; c++) {
+                    int code = code(tile(r, c));
+                    if (pending < 0) {
+                        pending = code << 4;
+                    } else {
+                        out.writeByte(pending | code);
+                        pending = -1;
+                    }
+                }
+            }
+            if (pending >= 0) {
+                out.writeByte(pending);
+            }
+        }
+    }
+
+    private static int code(char tile) {
+        for (int i = 0; i < CODES.length; i++) {
+            if (CODES[i] == tile) {
+                return i;
+            }
+        }
+        return 2; //anything unknown is an empty tile, as parseLevel treats it
+    }
+
+    // Matches Arrays.hashCode of the rows as strings, so a level hashes the same from either
+    // format. A pack of one level hashes as that level.
+    int hash() {
+        int hash = 1;
+        for (int r = 0; r < rowCount; r++) {
+            int rowHash = 0;
+            for (int c = 0; c < columnCount; c++) {
+                rowHash = 31 * rowHash + tile(r, c);
+            }
+            hash = 31 * hash + rowHash;
+        }
+        return hash;
+    }
+
+    static int hash(Level[] levels) {
+        int hash = levels[0].hash();
+        for (int i = 1; i < levels.length; i++) {
+            hash = 31 * hash + levels[i].hash();
+        }
+        return hash;
+    }
+
+    static class TextLevel extends Level {
+        private final String[] rows;
+
+        TextLevel(String name, String[] rows) {
+            super(name, rows.length, rows[0].length());
+            this.rows = rows;
+        }
+
+        @Override
+        char tile(int row, int col) {
+            return rows[row].charAt(col);
+        }
+    }
+
+    static class MappedLevel extends Level {
+        private final ByteBuffer tiles;
+
+        private MappedLevel(String name, int rowCount, int columnCount, ByteBuffer tiles) {
+            super(name, rowCount, columnCount);
+            this.tiles = tiles;
+        }
+
+        static MappedLevel open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                    throw new IOException(file + " is not a level file");
+                }
+                if (buffer.get(4) != VERSION) {
+                    throw new IOException(file + ": unsupported level version " + buffer.get(4));
+                }
+                int columns = buffer.getInt(5);
+                int rows = buffer.getInt(9);
+                long needed = HEADER_BYTES + ((long) rows * columns + 1) / 2;
+                if (columns <= 0 || rows <= 0 || buffer.limit() < needed) {
+                    throw new IOException(file + ": truncated " + columns + "x" + rows + " level");
+                }
+                //the mapping stays valid after the channel is closed
+                return new MappedLevel(file.getFileName().toString(), rows, columns, buffer);
+            }
+        }
+
+        @Override
+        char tile(int row, int col) {
+            int index = row * columnCount + col;
+            int packed = tiles.get(HEADER_BYTES + (index >>> 1));
+            int code = (index & 1) == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+            return code < CODES.length ? CODES[code] : 'O';
+        }
+    }
+}
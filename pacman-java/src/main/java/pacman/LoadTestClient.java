@@ -0,0 +1,314 @@
+package pacman;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Random;
+
+// Loopback load test for GameServer: opens many client connections from one Selector, spread over
+// a number of sessions with one player each sending random input and the rest spectating. Every
+// client keeps its own copy of the game built from keyframes and deltas, and checks it against
+// each keyframe that follows a delta. Reports bytes per tick per client, message sizes, ping round
+// trips (which queue behind the state broadcast) and, for a server started in this JVM, tick times.
+// Run with: java -cp target/classes pacman.LoadTestClient [clients] [sessions] [seconds] [host port]
+public class LoadTestClient {
+    static final int TICK_MILLIS = 50;
+    static final long PING_NANOS = 1_000_000_000L;
+    static final long INPUT_NANOS = 250_000_000L;
+
+    final Selector selector;
+    final Level[] levels = Level.pack();
+    final Simulation scratch; // keyframes that are only checked are decoded here
+    final LatencyHistogram roundTrips = new LatencyHistogram();
+    final Random random = new Random(1);
+    long bytes;
+    long deltas;
+    long deltaBytes;
+    long keyframes;
+    long keyframeBytes;
+    long updates; // one per broadcast tick a client saw
+    long checks;
+    long mismatches;
+    long resyncs;
+    int connected;
+    int closed;
+
+    LoadTestClient() throws IOException {
+        selector = Selector.open();
+        scratch = new Simulation(Simulation.introTicks(TICK_MILLIS), 3, 0, null, levels);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        GameServer server = null;
+        Thread serverThread = null;
+        InetSocketAddress address;
+        if (args.length > 4) {
+            address = new InetSocketAddress(args[3], Integer.parseInt(args[4]));
+        } else {
+            server = new GameServer(0, TICK_MILLIS, Level.pack());
+            serverThread = new Thread(server, "game-server");
+            serverThread.start();
+            address = new InetSocketAddress("127.0.0.1", server.port());
+        }
+
+        LoadTestClient test = new LoadTestClient();
+        long serverTicksBefore = 0;
+        try {
+            for (int i = 0; i < clients; i++) {
+                test.connect(address, i % sessions, i < sessions);
+            }
+            //let everyone connect and join before measuring
+            test.run(System.nanoTime() + 2_000_000_000L);
+            test.reset();
+            if (server != null) {
+                serverTicksBefore = server.ticks;
+            }
+            long start = System.nanoTime();
+            test.run(start + seconds * 1_000_000_000L);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            if (server != null) {
+                server.stop();
+                serverThread.join();
+            }
+            test.report(clients, sessions, elapsed);
+            if (server != null) {
+                long ticks = server.ticks - serverTicksBefore;
+                System.out.printf(Locale.ROOT, "server:        %d ticks, %d sessions, tick p50 %.2f ms  p99 %.2f ms  max %.2f ms, "
+                                + "%d frames skipped for slow clients%n",
+                        ticks, server.sessions.size(), server.tickTimes.percentile(50) / 1e6,
+                        server.tickTimes.percentile(99) / 1e6, server.tickTimes.max / 1e6, server.framesDropped);
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            test.selector.close();
+        }
+    }
+
+    void connect(InetSocketAddress address, int session, boolean player) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel, session, player);
+        boolean done = channel.connect(address);
+        connection.key = channel.register(selector, done ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connection);
+        if (done) {
+            connection.connected();
+        }
+    }
+
+    void run(long until) throws IOException {
+        long now;
+        while ((now = System.nanoTime()) < until) {
+            selector.select(Math.max(1, Math.min(10, (until - now) / 1_000_000)));
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Connection connection = (Connection) key.attachment();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isConnectable()) {
+                    connection.finishConnect();
+                } else if (key.isReadable()) {
+                    connection.read();
+                }
+            }
+            now = System.nanoTime();
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (key.isValid() && connection.joined) {
+                    connection.timers(now);
+                }
+            }
+        }
+    }
+
+    void reset() {
+        bytes = deltas = deltaBytes = keyframes = keyframeBytes = updates = 0;
+        checks = mismatches = resyncs = 0;
+        roundTrips.reset();
+    }
+
+    void report(int clients, int sessions, double seconds) {
+        System.out.printf(Locale.ROOT, "clients:       %d connected (%d asked), %d sessions, %d closed, %.1f s measured%n",
+                connected, clients, sessions, closed, seconds);
+        System.out.printf(Locale.ROOT, "traffic:       %.1f bytes/tick per client, %.1f KB/s per client, %.2f MB/s total%n",
+                updates == 0 ? 0.0 : (double) bytes / updates, bytes / seconds / Math.max(1, connected) / 1024,
+                bytes / seconds / (1 << 20));
+        System.out.printf(Locale.ROOT, "messages:      %d deltas, mean %.1f bytes; %d keyframes, mean %.1f bytes%n",
+                deltas, deltas == 0 ? 0.0 : (double) deltaBytes / deltas,
+                keyframes, keyframes == 0 ? 0.0 : (double) keyframeBytes / keyframes);
+        System.out.printf(Locale.ROOT, "round trip:    p50 %.2f ms  p99 %.2f ms  max %.2f ms (%d pings)%n",
+                roundTrips.percentile(50) / 1e6, roundTrips.percentile(99) / 1e6, roundTrips.max / 1e6, roundTrips.count);
+        System.out.printf(Locale.ROOT, "consistency:   %d keyframe checks, %d mismatches, %d resyncs%n",
+                checks, mismatches, resyncs);
+    }
+
+    class Connection {
+        final SocketChannel channel;
+        final int session;
+        final boolean player;
+        final ByteBuffer inbox = ByteBuffer.allocate(64 * 1024);
+        final ByteBuffer outbox = ByteBuffer.allocate(64);
+        final Simulation mirror = new Simulation(Simulation.introTicks(TICK_MILLIS), 3, 0, null, levels);
+        SelectionKey key;
+        boolean joined;
+        boolean synced; // has had a keyframe
+        boolean afterDelta; // the last frame was a delta, so a keyframe now only checks it
+        long nextPing;
+        long nextInput;
+
+        Connection(SocketChannel channel, int session, boolean player) {
+            this.channel = channel;
+            this.session = session;
+            this.player = player;
+        }
+
+        void finishConnect() {
+            try {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            connected();
+        }
+
+        void connected() {
+            connected++;
+            int start = NetProtocol.beginFrame(outbox, NetProtocol.HELLO);
+            outbox.putInt(session);
+            outbox.put((byte) (player ? NetProtocol.PLAYER : NetProtocol.SPECTATOR));
+            NetProtocol.endFrame(outbox, start);
+            send();
+            joined = true;
+            //spread pings over the first second so they do not all land on one tick
+            long now = System.nanoTime();
+            nextPing = now + (long) (random.nextDouble() * PING_NANOS);
+            nextInput = now;
+        }
+
+        void timers(long now) {
+            if (now >= nextPing) {
+                nextPing += PING_NANOS;
+                int start = NetProtocol.beginFrame(outbox, NetProtocol.PING);
+                outbox.putLong(System.nanoTime());
+                NetProtocol.endFrame(outbox, start);
+                send();
+            }
+            if (player && now >= nextInput) {
+                nextInput += INPUT_NANOS;
+                int start = NetProtocol.beginFrame(outbox, NetProtocol.INPUT);
+                outbox.put((byte) Simulation.DIRECTIONS[random.nextInt(4)]);
+                NetProtocol.endFrame(outbox, start);
+                send();
+            }
+        }
+
+        // client messages are a few bytes, a blocked socket here means the server stopped reading
+        private void send() {
+            outbox.flip();
+            try {
+                channel.write(outbox);
+            } catch (IOException e) {
+                close();
+            }
+            outbox.clear();
+        }
+
+        void read() {
+            int read;
+            try {
+                read = channel.read(inbox);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (read < 0) {
+                close();
+                return;
+            }
+            bytes += read;
+            inbox.flip();
+            while (inbox.remaining() >= NetProtocol.HEADER_BYTES) {
+                int length = inbox.getInt(inbox.position());
+                if (length < 1 || length > inbox.capacity() - 4) {
+                    System.err.println("bad frame length " + length);
+                    close();
+                    return;
+                }
+                if (inbox.remaining() < 4 + length) {
+                    break;
+                }
+                int end = inbox.position() + 4 + length;
+                inbox.getInt();
+                handle(inbox.get(), 4 + length);
+                inbox.position(end);
+            }
+            inbox.compact();
+        }
+
+        private void handle(int type, int size) {
+            if (type == NetProtocol.DELTA) {
+                deltas++;
+                deltaBytes += size;
+                updates++;
+                if (synced) {
+                    DeltaCodec.applyDelta(inbox, mirror);
+                }
+                afterDelta = true;
+            } else if (type == NetProtocol.KEYFRAME) {
+                keyframes++;
+                keyframeBytes += size;
+                int payload = inbox.position();
+                long tick = inbox.getLong(payload + 8);
+                if (afterDelta && synced && tick == mirror.tick) {
+                    //same tick as the delta just applied, the two have to agree
+                    checks++;
+                    if (!DeltaCodec.applyKeyframe(inbox, scratch) || !DeltaCodec.sameState(mirror, scratch)) {
+                        //take the server's state, or every later check would count the same divergence again
+                        mismatches++;
+                        resyncs++;
+                        inbox.position(payload);
+                        synced = DeltaCodec.applyKeyframe(inbox, mirror);
+                    }
+                } else {
+                    updates++;
+                    if (synced) {
+                        resyncs++;
+                    }
+                    synced = DeltaCodec.applyKeyframe(inbox, mirror);
+                }
+                afterDelta = false;
+            } else if (type == NetProtocol.PONG) {
+                roundTrips.record(System.nanoTime() - inbox.getLong());
+            }
+        }
+
+        void close() {
+            if (key.isValid()) {
+                closed++;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
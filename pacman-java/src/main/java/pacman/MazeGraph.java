@@ -0,0 +1,137 @@
+package pacman;
+
+// Navigation data built once per level: which neighbours each tile opens onto, which tiles are
+// junctions (a ghost has a real choice there), and BFS distance fields towards a target tile.
+// Tiles outside the grid count as blocked.
+public class MazeGraph {
+    //exit bits, in the same order as Simulation.directions
+    static final int UP = 1;
+    static final int DOWN = 2;
+    static final int LEFT = 4;
+    static final int RIGHT = 8;
+    //distance fields cost 8 bytes a tile each, larger levels steer by straight-line distance
+    static final int MAX_FIELD_TILES = 1 << 22;
+
+    final int rowCount;
+    final int columnCount;
+    final byte[] exits;
+
+    MazeGraph(boolean[] wallGrid, int rowCount, int columnCount) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.exits = new byte[rowCount * columnCount];
+
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                int tile = r * columnCount + c;
+                if (wallGrid[tile]) {
+                    continue;
+                }
+                int mask = 0;
+                if (r > 0 && !wallGrid[tile - columnCount]) {
+                    mask |= UP;
+                }
+                if (r < rowCount - 1 && !wallGrid[tile + columnCount]) {
+                    mask |= DOWN;
+                }
+                if (c > 0 && !wallGrid[tile - 1]) {
+                    mask |= LEFT;
+                }
+                if (c < columnCount - 1 && !wallGrid[tile + 1]) {
+                    mask |= RIGHT;
+                }
+                exits[tile] = (byte) mask;
+            }
+        }
+    }
+
+    // straight corridors (up+down or left+right) need no decision, everything else does
+    boolean isJunction(int tile) {
+        int mask = exits[tile];
+        return mask != (UP | DOWN) && mask != (LEFT | RIGHT);
+    }
+
+    static int exitBit(char direction) {
+        if (direction == 'U') {
+            return UP;
+        } else if (direction == 'D') {
+            return DOWN;
+        } else if (direction == 'L') {
+            return LEFT;
+        }
+        return RIGHT;
+    }
+
+    static char opposite(char direction) {
+        if (direction == 'U') {
+            return 'D';
+        } else if (direction == 'D') {
+            return 'U';
+        } else if (direction == 'L') {
+            return 'R';
+        }
+        return 'L';
+    }
+
+    int neighbour(int tile, char direction) {
+        if (direction == 'U') {
+            return tile - columnCount;
+        } else if (direction == 'D') {
+            return tile + columnCount;
+        } else if (direction == 'L') {
+            return tile - 1;
+        }
+        return tile + 1;
+    }
+
+    int manhattan(int from, int to) {
+        return Math.abs(from / columnCount - to / columnCount) + Math.abs(from % columnCount - to % columnCount);
+    }
+
+    // nearest grid tile to a pixel position, so targets just off the board still resolve
+    int clampedTile(int x, int y, int tileSize) {
+        int col = Math.max(0, Math.min(columnCount - 1, Math.floorDiv(x + tileSize / 2, tileSize)));
+        int row = Math.max(0, Math.min(rowCount - 1, Math.floorDiv(y + tileSize / 2, tileSize)));
+        return row * columnCount + col;
+    }
+
+    // Steps from every open tile to one target tile. Recomputing reuses the arrays, so a field can
+    // follow a moving target without allocating.
+    class DistanceField {
+        static final int UNREACHABLE = Integer.MAX_VALUE;
+
+        final int[] distance = new int[rowCount * columnCount];
+        private final int[] queue = new int[rowCount * columnCount];
+        int target = -1;
+
+        void recompute(int targetTile) {
+            target = targetTile;
+            java.util.Arrays.fill(distance, UNREACHABLE);
+            distance[targetTile] = 0;
+            queue[0] = targetTile;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int tile = queue[head++];
+                int next = distance[tile] + 1;
+                int mask = exits[tile];
+                if ((mask & UP) != 0 && distance[tile - columnCount] == UNREACHABLE) {
+                    distance[tile - columnCount] = next;
+                    queue[tail++] = tile - columnCount;
+                }
+                if ((mask & DOWN) != 0 && distance[tile + columnCount] == UNREACHABLE) {
+                    distance[tile + columnCount] = next;
+                    queue[tail++] = tile + columnCount;
+                }
+                if ((mask & LEFT) != 0 && distance[tile - 1] == UNREACHABLE) {
+                    distance[tile - 1] = next;
+                    queue[tail++] = tile - 1;
+                }
+                if ((mask & RIGHT) != 0 && distance[tile + 1] == UNREACHABLE) {
+                    distance[tile + 1] = next;
+                    queue[tail++] = tile + 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package pacman;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Generated levels in the same character format as Simulation.DEFAULT_LAYOUT, for benchmarks and
+// stress runs. Tiles are worked out on demand, so even a 10k x 10k maze can be streamed to a
+// level file without holding it in memory:
+//
+// java -cp target/classes pacman.Mazes <columns> <rows> <ghosts> <file.lvl | file.txt>
+public class Mazes {
+    static final char[] GHOSTS = {'b', 'o', 'p', 'r'};
+
+    private Mazes() {}
+
+    static String[] generate(int columns, int rows, int ghostCount) {
+        Level level = level(columns, rows, ghostCount);
+        String[] layout = new String[rows];
+        char[] row = new char[columns];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                row[c] = level.tile(r, c);
+            }
+            layout[r] = new String(row);
+        }
+        return layout;
+    }
+
+    // bordered maze with a pillar on every other tile, hero in the top left corner
+    // and ghosts spread evenly over the open tiles
+    static Level level(int columns, int rows, int ghostCount) {
+        return new PillarLevel(columns, rows, ghostCount);
+    }
+
+    static class PillarLevel extends Level {
+        private final int[] ghostTiles; // ascending tile indexes
+        private final char[] ghostKinds;
+
+        PillarLevel(int columns, int rows, int ghostCount) {
+            super("pillars-" + columns + "x" + rows, rows, columns);
+            long openTiles = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    if (!wall(r, c)) {
+                        openTiles++;
+                    }
+                }
+            }
+
+            // skip the tiles next to the hero so nobody starts on top of it
+            long stride = Math.max(1, (openTiles - 4) / Math.max(1, ghostCount));
+            int[] tiles = new int[ghostCount];
+            int placed = 0;
+            long seen = 0;
+            for (int r = 0; r < rows && placed < ghostCount; r++) {
+                for (int c = 0; c < columns && placed < ghostCount; c++) {
+                    if (wall(r, c) || (r == 1 && c == 1) || (r < 4 && c < 4)) {
+                        continue;
+                    }
+                    if (seen++ % stride == 0) {
+                        tiles[placed++] = r * columns + c;
+                    }
+                }
+            }
+            ghostTiles = Arrays.copyOf(tiles, placed);
+            ghostKinds = new char[placed];
+            for (int i = 0; i < placed; i++) {
+                ghostKinds[i] = GHOSTS[i % GHOSTS.length];
+            }
+        }
+
+        private boolean wall(int r, int c) {
+            boolean border = r == 0 || c == 0 || r == rowCount - 1 || c == columnCount - 1;
+            boolean pillar = r % 2 == 0 && c % 2 == 0;
+            return border || pillar;
+        }
+
+        @Override
+        char tile(int row, int col) {
+            if (wall(row, col)) {
+                return 'X';
+            }
+            if (row == 1 && col == 1) {
+                return 'P';
+            }
+            int ghost = Arrays.binarySearch(ghostTiles, row * columnCount + col);
+            return ghost >= 0 ? ghostKinds[ghost] : ' ';
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("usage: Mazes <columns> <rows> <ghosts> <file" + Level.BINARY_EXTENSION
+                    + " | file" + Level.TEXT_EXTENSION + ">");
+            System.exit(2);
+        }
+        Level level = level(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        Path file = Path.of(args[3]);
+        if (args[3].endsWith(Level.BINARY_EXTENSION)) {
+            level.writeBinary(file);
+        } else {
+            level.writeText(file);
+        }
+    }
+}
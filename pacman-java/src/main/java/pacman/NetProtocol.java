@@ -0,0 +1,85 @@
+package pacman;
+
+import java.nio.ByteBuffer;
+
+// Wire format between GameServer and its clients. Every message is a frame:
+//   length (int, bytes after this field), type (byte), payload
+//
+// Client to server:
+//   HELLO     session (int), role (byte: SPECTATOR or PLAYER)
+//   INPUT     direction (byte, 'U' 'D' 'L' 'R'), players only, the last one before a tick wins
+//   PING      client time (long), echoed back in a PONG
+//
+// Server to client:
+//   KEYFRAME  level index (int), level hash (int), then Simulation.snapshot() of the session
+//   DELTA     what one tick changed since the previous KEYFRAME or DELTA, as varints:
+//             tick, score, lives, flags (byte: scatter, game over, intro, fruit index + 1 in
+//             bits 3-4, hero direction in bits 5-6), then the entities that moved or changed
+//             fright, each as (index gap << 1 | frightened) and zigzag dx, dy, with the hero
+//             at index 0 and ghost i at i + 1, then the pellets that appeared or went, as tile gaps
+//   PONG      the PING's client time (long)
+// A client starts from the first KEYFRAME it gets and applies DELTAs on top. Keyframes replace the
+// tick's DELTA on joining, on a level change and after the client fell behind; every KEYFRAME_TICKS
+// one also follows the tick's DELTA, describing the state the client should already have.
+final class NetProtocol {
+    static final int HELLO = 1;
+    static final int INPUT = 2;
+    static final int PING = 3;
+    static final int KEYFRAME = 10;
+    static final int DELTA = 11;
+    static final int PONG = 12;
+
+    static final int SPECTATOR = 0;
+    static final int PLAYER = 1;
+
+    static final int HEADER_BYTES = 5;
+    static final int MAX_FRAME_BYTES = 1 << 20;
+    static final int KEYFRAME_TICKS = 100;
+
+    private NetProtocol() {}
+
+    // starts a frame at the buffer's position, returns where to patch the length
+    static int beginFrame(ByteBuffer out, int type) {
+        int start = out.position();
+        out.putInt(0);
+        out.put((byte) type);
+        return start;
+    }
+
+    static void endFrame(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    // LEB128, 7 bits a byte, low bits first
+    static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int flags(Simulation sim) {
+        return (sim.scatterMode ? 1 : 0) | (sim.gameOver ? 2 : 0) | (sim.inIntro() ? 4 : 0)
+                | (sim.fruitIndex + 1) << 3 | Simulation.directionCode(sim.hero.direction) << 5;
+    }
+}
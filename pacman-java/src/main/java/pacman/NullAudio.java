@@ -0,0 +1,17 @@
+package pacman;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Silent backend for headless runs and tests; it only counts what would have played.
+public class NullAudio implements Audio {
+    private final AtomicLongArray played = new AtomicLongArray(Sound.values().length);
+
+    @Override
+    public void play(Sound sound) {
+        played.incrementAndGet(sound.ordinal());
+    }
+
+    long playedCount(Sound sound) {
+        return played.get(sound.ordinal());
+    }
+}
@@ -0,0 +1,386 @@
+package pacman;
+
+import java.awt.*;
+import java.awt.event.*;
+import javax.swing.*;
+
+public class PacMan extends JPanel implements ActionListener, KeyListener, Simulation.Listener, SceneManager.GameScene {
+    //-Dpacman.logRepaint=true prints how many pixels each tick repaints
+    static final boolean LOG_REPAINT = Boolean.getBoolean("pacman.logRepaint");
+    private static final int MAX_DIRTY_RECTS = 64; // room for a pulse strip per row of the view
+    private static final int DIRTY_PADDING = 4; //covers pellet glow left behind under the hero
+    private static final int HUD_HEIGHT = 40;
+
+    private GameRenderer renderer;
+
+    //what was on screen before the current tick, to work out which areas changed
+    private final Rectangle[] dirtyRects = new Rectangle[MAX_DIRTY_RECTS];
+    private int dirtyCount;
+    private boolean fullRepaint;
+    private int[] lastEntityX = new int[0];
+    private int[] lastEntityY = new int[0];
+    private int lastScore;
+    private int lastLives;
+    private int lastLevelVersion;
+    private boolean lastIntro;
+    private int lastFruit;
+    private boolean lastGameOver;
+    private int lastCameraX;
+    private int lastCameraY;
+    private int viewWidth; // preferred size, follows the level
+    private int viewHeight;
+    private int fittedLevelVersion;
+    private int lastPerfWindows;
+    final PerfStats perf;
+
+    Simulation sim;
+    Timer gameLoop;
+    int gameLoopDelay;
+    int visualTick = 0;
+    char pendingInput = Simulation.NO_INPUT;
+    Runnable quitAction;
+    Recording recording; // null unless -Dpacman.record is set
+
+    PacMan() {
+        this(50, 3, null);
+    }
+
+    PacMan(int gameLoopDelay, int initialLives) {
+        this(gameLoopDelay, initialLives, null);
+    }
+
+    PacMan(int gameLoopDelay, int initialLives, Runnable quitAction) {
+        this.gameLoopDelay = gameLoopDelay;
+        this.quitAction = quitAction;
+        this.perf = new PerfStats(gameLoopDelay * 1_000_000L);
+
+        setBackground(Color.BLACK);
+        addKeyListener(this);
+        setFocusable(true);
+
+        //intro lasts about 1.2 seconds whatever the tick rate
+        long seed = System.nanoTime();
+        sim = new Simulation(Simulation.introTicks(gameLoopDelay), initialLives, seed, this, Level.pack());
+        recording = Recording.start(sim, seed);
+
+        renderer = new GameRenderer(sim);
+        fitBoard();
+        //how long it takes to start timer, milliseconds gone between frames
+        gameLoop = new Timer(gameLoopDelay, this);
+        gameLoop.start();
+
+    }
+
+    // starts over at another tick rate and number of lives, keeping the panel, its timer and
+    // its renderer; the game must not be running
+    @Override
+    public void newGame(int gameLoopDelay, int initialLives) {
+        gameLoop.stop();
+        saveRecording();
+        this.gameLoopDelay = gameLoopDelay;
+        gameLoop.setDelay(gameLoopDelay);
+        gameLoop.setInitialDelay(gameLoopDelay);
+        perf.restart(gameLoopDelay * 1_000_000L);
+        sim.introTicks = Simulation.introTicks(gameLoopDelay);
+        sim.initialLives = initialLives;
+        long seed = System.nanoTime();
+        sim.restart(seed);
+        recording = Recording.start(sim, seed);
+        renderer.setHeroDirection('R'); // as a new renderer starts
+        pendingInput = Simulation.NO_INPUT;
+        visualTick = 0;
+        repaint();
+        gameLoop.start();
+    }
+
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        render(g);
+    }
+
+    public void render(Graphics g) {
+        long start = System.nanoTime();
+        renderer.render((Graphics2D) g, getGraphicsConfiguration(), viewWidth(), viewHeight(), visualTick, 1f);
+        perf.renderTime(System.nanoTime() - start);
+    }
+
+    //offscreen callers render a panel that was never laid out, they get its preferred size
+    int viewWidth() {
+        return getWidth() > 0 ? getWidth() : viewWidth;
+    }
+
+    int viewHeight() {
+        return getHeight() > 0 ? getHeight() : viewHeight;
+    }
+
+    @Override
+    public void onRoundStart() {
+        Audio.shared().play(Audio.Sound.START);
+    }
+
+    @Override
+    public void onHeroHit() {
+        Audio.shared().play(Audio.Sound.HIT);
+    }
+
+    @Override
+    public void onGameOver() {
+        Audio.shared().play(Audio.Sound.GAME_OVER);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        char input = pendingInput;
+        pendingInput = Simulation.NO_INPUT;
+        long start = System.nanoTime();
+        perf.frameStarted(start);
+        rememberFrame();
+        sim.step(input);
+        perf.tickTime(System.nanoTime() - start);
+        if (input != Simulation.NO_INPUT) {
+            renderer.setHeroDirection(sim.hero.direction);
+        }
+        visualTick++;
+        if (sim.levelVersion != fittedLevelVersion) {
+            fittedLevelVersion = sim.levelVersion;
+            fitBoard();
+        }
+        repaintChanges();
+        if (sim.gameOver) {
+            gameLoop.stop();
+            saveRecording();
+        }
+    }
+
+    // levels in a pack can differ in size, the view shrinks to small ones and scrolls over big ones
+    private void fitBoard() {
+        Dimension view = Camera.viewSize(sim.boardWidth, sim.boardHeight);
+        if (view.width == viewWidth && view.height == viewHeight) {
+            return;
+        }
+        viewWidth = view.width;
+        viewHeight = view.height;
+        setPreferredSize(view);
+        Window window = SwingUtilities.getWindowAncestor(this);
+        if (window != null) {
+            window.pack();
+        }
+    }
+
+    private void saveRecording() {
+        if (recording != null) {
+            recording.save(sim);
+            recording = null;
+        }
+    }
+
+    private void rememberFrame() {
+        int entityCount = sim.ghosts.count + 1;
+        if (lastEntityX.length != entityCount) {
+            lastEntityX = new int[entityCount];
+            lastEntityY = new int[entityCount];
+        }
+        lastEntityX[0] = sim.hero.x;
+        lastEntityY[0] = sim.hero.y;
+        System.arraycopy(sim.ghosts.x, 0, lastEntityX, 1, entityCount - 1);
+        System.arraycopy(sim.ghosts.y, 0, lastEntityY, 1, entityCount - 1);
+        lastScore = sim.score;
+        lastLives = sim.lives;
+        lastLevelVersion = sim.levelVersion;
+        lastIntro = sim.inIntro();
+        lastFruit = sim.fruitIndex;
+        lastPerfWindows = perf.windows;
+        lastGameOver = sim.gameOver;
+        lastCameraX = renderer.camera.x;
+        lastCameraY = renderer.camera.y;
+    }
+
+    // Works out what the tick changed and paints just those areas. Separate repaint(Rectangle)
+    // calls would be merged by the RepaintManager into one bounding box, usually most of the
+    // board, so each merged area is painted on its own with paintImmediately.
+    // Areas are in view coordinates; once the camera scrolls, everything has moved.
+    private void repaintChanges() {
+        int viewWidth = viewWidth();
+        int viewHeight = viewHeight();
+        int tileSize = sim.tileSize;
+        renderer.followHero(viewWidth, viewHeight, 1f);
+        dirtyCount = 0;
+        fullRepaint = lastLevelVersion != sim.levelVersion
+                || lastCameraX != renderer.camera.x
+                || lastCameraY != renderer.camera.y
+                || lastEntityX.length != sim.ghosts.count + 1
+                || lastIntro != sim.inIntro()
+                || lastGameOver != sim.gameOver;
+
+        if (!fullRepaint) {
+            markEntity(lastEntityX[0], lastEntityY[0], sim.hero.x, sim.hero.y, tileSize);
+            for (int i = 1; i < lastEntityX.length && !fullRepaint; i++) {
+                markEntity(lastEntityX[i], lastEntityY[i], sim.ghosts.x[i - 1], sim.ghosts.y[i - 1], tileSize);
+            }
+            markDirty(0, ((visualTick - 1) * 4) % viewHeight, viewWidth, 3);
+            markDirty(0, (visualTick * 4) % viewHeight, viewWidth, 3);
+            if (lastFruit != sim.fruitIndex && sim.fruitTile >= 0) {
+                int fruitX = (sim.fruitTile % sim.columnCount) * tileSize;
+                int fruitY = (sim.fruitTile / sim.columnCount) * tileSize;
+                markEntity(fruitX, fruitY, fruitX, fruitY, tileSize);
+            }
+            if (GameRenderer.pulseFrame(visualTick) != GameRenderer.pulseFrame(visualTick - 1)) {
+                markPellets(tileSize);
+            }
+            if (lastScore != sim.score || lastLives != sim.lives) {
+                markDirty(0, 0, viewWidth, HUD_HEIGHT);
+            }
+            if (renderer.overlay != null && lastPerfWindows != perf.windows) {
+                markDirty(GameRenderer.PERF_X, GameRenderer.PERF_Y, GameRenderer.PERF_WIDTH + 1,
+                        GameRenderer.overlayHeight(perf.lines.length) + 1);
+            }
+        }
+
+        if (fullRepaint) {
+            if (LOG_REPAINT) {
+                logRepaint(1, (long) viewWidth * viewHeight);
+            }
+            repaint();
+            return;
+        }
+        long pixels = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            Rectangle rect = dirtyRects[i];
+            pixels += (long) rect.width * rect.height;
+            paintImmediately(rect);
+        }
+        if (LOG_REPAINT) {
+            logRepaint(dirtyCount, pixels);
+        }
+    }
+
+    // Every pellet in the view changes sprite when the pulse flips. Ordinary pellets are marked
+    // as one strip per row, just the height of their sprite, from the first to the last pellet;
+    // power pellets, drawn tile-sized, are marked as whole tiles.
+    private void markPellets(int tileSize) {
+        Camera camera = renderer.camera;
+        int columnCount = sim.columnCount;
+        int spriteOffset = sim.pelletOffset - 2;
+        int spriteSize = sim.pelletSize + 4;
+        int firstRow = Math.max(0, Math.floorDiv(camera.y, tileSize));
+        int lastRow = Math.min(sim.rowCount - 1, (camera.y + camera.viewHeight - 1) / tileSize);
+        int firstCol = Math.max(0, Math.floorDiv(camera.x, tileSize));
+        int lastCol = Math.min(columnCount - 1, (camera.x + camera.viewWidth - 1) / tileSize);
+        for (int row = firstRow; row <= lastRow && firstCol <= lastCol && !fullRepaint; row++) {
+            int rowStart = row * columnCount;
+            int left = -1;
+            int right = -1;
+            for (int tile = rowStart + firstCol; tile <= rowStart + lastCol; tile++) {
+                long mask = 1L << tile;
+                if ((sim.pelletBits[tile >>> 6] & mask) == 0) {
+                    continue;
+                }
+                int x = (tile - rowStart) * tileSize - camera.x;
+                if ((sim.powerBits[tile >>> 6] & mask) != 0) {
+                    markDirty(x, row * tileSize - camera.y, tileSize, tileSize);
+                    continue;
+                }
+                if (left < 0) {
+                    left = x;
+                }
+                right = x;
+            }
+            if (left >= 0) {
+                markDirty(left + spriteOffset, row * tileSize + spriteOffset - camera.y,
+                        right - left + spriteSize, spriteSize);
+            }
+        }
+    }
+
+    // old and new board positions, marked where they show in the view
+    private void markEntity(int oldX, int oldY, int x, int y, int size) {
+        int left = Math.min(oldX, x) - DIRTY_PADDING - renderer.camera.x;
+        int top = Math.min(oldY, y) - DIRTY_PADDING - renderer.camera.y;
+        int right = Math.max(oldX, x) + size + DIRTY_PADDING - renderer.camera.x;
+        int bottom = Math.max(oldY, y) + size + DIRTY_PADDING - renderer.camera.y;
+        markDirty(left, top, right - left, bottom - top);
+    }
+
+    // adds a rectangle, merging it into any it overlaps; too many separate areas means a full repaint
+    private void markDirty(int x, int y, int width, int height) {
+        int left = Math.max(0, x);
+        int top = Math.max(0, y);
+        int right = Math.min(renderer.camera.viewWidth, x + width);
+        int bottom = Math.min(renderer.camera.viewHeight, y + height);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            Rectangle rect = dirtyRects[i];
+            if (left <= rect.x + rect.width && right >= rect.x && top <= rect.y + rect.height && bottom >= rect.y) {
+                //take the merged rectangle out and add it again, it may now touch others
+                left = Math.min(left, rect.x);
+                top = Math.min(top, rect.y);
+                right = Math.max(right, rect.x + rect.width);
+                bottom = Math.max(bottom, rect.y + rect.height);
+                dirtyCount--;
+                dirtyRects[i] = dirtyRects[dirtyCount];
+                dirtyRects[dirtyCount] = rect;
+                markDirty(left, top, right - left, bottom - top);
+                return;
+            }
+        }
+        if (dirtyCount == MAX_DIRTY_RECTS) {
+            fullRepaint = true;
+            return;
+        }
+        if (dirtyRects[dirtyCount] == null) {
+            dirtyRects[dirtyCount] = new Rectangle();
+        }
+        dirtyRects[dirtyCount++].setBounds(left, top, right - left, bottom - top);
+    }
+
+    private void logRepaint(int areas, long pixels) {
+        long viewPixels = (long) renderer.camera.viewWidth * renderer.camera.viewHeight;
+        System.out.printf("tick %d: %d area(s), %d px repainted (%.1f%% of view)%n",
+                visualTick, areas, pixels, 100.0 * pixels / viewPixels);
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {}
+
+    @Override
+    public void keyPressed(KeyEvent e) {}
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_Q) {
+            gameLoop.stop();
+            saveRecording();
+            if (quitAction != null) {
+                quitAction.run();
+            } else {
+                Window window = SwingUtilities.getWindowAncestor(this);
+                if (window != null) {
+                    window.dispose();
+                }
+            }
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            renderer.overlay = renderer.overlay == null ? perf : null;
+            repaint();
+            return;
+        }
+
+        if (sim.gameOver) {
+            newGame(gameLoopDelay, sim.initialLives);
+        }
+        // System.out.println("KeyEvent: " + e.getKeyCode());
+        //applied on the next tick so the simulation sees input in tick order
+        if (e.getKeyCode() == KeyEvent.VK_UP) {
+            pendingInput = 'U';
+        } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+            pendingInput = 'D';
+        } else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+            pendingInput = 'L';
+        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+            pendingInput = 'R';
+        }
+    }
+}
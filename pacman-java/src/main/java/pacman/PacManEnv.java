@@ -0,0 +1,188 @@
+package pacman;
+
+import java.util.Arrays;
+
+// Gym-style environment over the game's Simulation for training agents: reset(seed) starts an
+// episode, step(action) plays one tick and returns the reward, the score gained that tick.
+//
+// The observation is four planes of rows x columns floats, plane-major (channels, height, width):
+//   0 walls     1 on wall tiles
+//   1 pellets   0.5 for a pellet, 1 for a power pellet
+//   2 ghosts    1 per ghost on the tile, 0.5 per frightened one
+//   3 hero      1 on the hero's tile
+// Entities count as being on the tile holding their centre. The planes live in a float[] that
+// may be shared, at an offset, with other environments (see VectorEnv), and are kept up to date
+// by touching only the cells that changed, so neither step nor reset allocates.
+//
+// Actions are 0-3 for up, down, left, right as in Simulation.DIRECTIONS, and NO_OP to keep
+// going. There is no intro pause; an episode ends on game over or after maxSteps steps.
+public class PacManEnv {
+    static final int NO_OP = 4;
+    static final int ACTIONS = 5;
+    static final int PLANES = 4;
+    static final int WALLS = 0;
+    static final int PELLETS = 1;
+    static final int GHOSTS = 2;
+    static final int HERO = 3;
+    static final float PELLET = 0.5f;
+    static final float POWER_PELLET = 1f;
+    static final float GHOST = 1f;
+    static final float FRIGHTENED_GHOST = 0.5f;
+
+    final Simulation sim;
+    final int rows;
+    final int columns;
+    final int planeSize;
+    final int observationSize;
+    final float[] observation;
+    final int offset; // where this environment's planes start in observation
+    final int maxSteps;
+    int steps; // in this episode
+    boolean done;
+
+    private long[] pellets = new long[0]; // pellet bits as the plane shows them
+    private int[] ghostCells = new int[0];
+    private float[] ghostValues = new float[0];
+    private int heroCell;
+    private int levelVersion = -1;
+
+    PacManEnv(Level[] levels, int maxSteps) {
+        this(levels, maxSteps, null, 0);
+    }
+
+    // observation == null gives the environment an array of its own
+    PacManEnv(Level[] levels, int maxSteps, float[] observation, int offset) {
+        rows = levels[0].rowCount;
+        columns = levels[0].columnCount;
+        for (Level level : levels) {
+            if (level.rowCount != rows || level.columnCount != columns) {
+                throw new IllegalArgumentException("levels must all be " + columns + "x" + rows
+                        + " for a fixed observation shape, " + level.name + " is "
+                        + level.columnCount + "x" + level.rowCount);
+            }
+        }
+        planeSize = rows * columns;
+        observationSize = PLANES * planeSize;
+        this.observation = observation != null ? observation : new float[observationSize];
+        this.offset = observation != null ? offset : 0;
+        this.maxSteps = maxSteps;
+        sim = new Simulation(0, 3, 0, null, levels);
+        reset(0);
+    }
+
+    // floats in one environment's observation; every level in a pack has the first one's shape
+    static int observationSize(Level[] levels) {
+        return PLANES * levels[0].rowCount * levels[0].columnCount;
+    }
+
+    // starts a new episode; the same seed and actions always play out the same way
+    void reset(long seed) {
+        sim.restart(seed);
+        steps = 0;
+        done = false;
+        levelVersion = -1;
+        observe();
+    }
+
+    // plays one tick and returns the points scored in it; after the episode is done it does nothing
+    float step(int action) {
+        if (action < 0 || action > NO_OP) {
+            throw new IllegalArgumentException("action must be 0 to " + NO_OP + ", got " + action);
+        }
+        if (done) {
+            return 0;
+        }
+        int score = sim.score;
+        sim.step(action < NO_OP ? Simulation.DIRECTIONS[action] : Simulation.NO_INPUT);
+        steps++;
+        done = sim.gameOver || steps >= maxSteps;
+        observe();
+        return sim.score - score;
+    }
+
+    private void observe() {
+        if (sim.levelVersion != levelVersion) {
+            drawLevel();
+            return;
+        }
+        float[] planes = observation;
+        long[] bits = sim.pelletBits;
+        int pelletPlane = offset + PELLETS * planeSize;
+        for (int word = 0; word < bits.length; word++) {
+            long changed = bits[word] ^ pellets[word];
+            while (changed != 0) {
+                int tile = (word << 6) + Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                planes[pelletPlane + tile] = pelletValue(tile);
+            }
+            pellets[word] = bits[word];
+        }
+
+        int ghostPlane = offset + GHOSTS * planeSize;
+        EntityStore ghosts = sim.ghosts;
+        for (int i = 0; i < ghosts.count; i++) {
+            int cell = cellOf(ghosts.x[i], ghosts.y[i]);
+            float value = ghosts.frightened[i] ? FRIGHTENED_GHOST : GHOST;
+            if (cell != ghostCells[i] || value != ghostValues[i]) {
+                planes[ghostPlane + ghostCells[i]] -= ghostValues[i];
+                planes[ghostPlane + cell] += value;
+                ghostCells[i] = cell;
+                ghostValues[i] = value;
+            }
+        }
+
+        int cell = cellOf(sim.hero.x, sim.hero.y);
+        if (cell != heroCell) {
+            int heroPlane = offset + HERO * planeSize;
+            planes[heroPlane + heroCell] = 0;
+            planes[heroPlane + cell] = 1;
+            heroCell = cell;
+        }
+    }
+
+    // every plane from scratch, on reset and when the game moves to another level
+    private void drawLevel() {
+        levelVersion = sim.levelVersion;
+        float[] planes = observation;
+        Arrays.fill(planes, offset, offset + observationSize, 0f);
+        for (int tile = 0; tile < planeSize; tile++) {
+            if (sim.wallGrid[tile]) {
+                planes[offset + WALLS * planeSize + tile] = 1;
+            }
+            planes[offset + PELLETS * planeSize + tile] = pelletValue(tile);
+        }
+        if (pellets.length != sim.pelletBits.length) {
+            pellets = new long[sim.pelletBits.length];
+        }
+        System.arraycopy(sim.pelletBits, 0, pellets, 0, pellets.length);
+
+        EntityStore ghosts = sim.ghosts;
+        if (ghostCells.length != ghosts.count) {
+            ghostCells = new int[ghosts.count];
+            ghostValues = new float[ghosts.count];
+        }
+        for (int i = 0; i < ghosts.count; i++) {
+            ghostCells[i] = cellOf(ghosts.x[i], ghosts.y[i]);
+            ghostValues[i] = ghosts.frightened[i] ? FRIGHTENED_GHOST : GHOST;
+            planes[offset + GHOSTS * planeSize + ghostCells[i]] += ghostValues[i];
+        }
+        heroCell = cellOf(sim.hero.x, sim.hero.y);
+        planes[offset + HERO * planeSize + heroCell] = 1;
+    }
+
+    private float pelletValue(int tile) {
+        long mask = 1L << tile;
+        if ((sim.pelletBits[tile >>> 6] & mask) == 0) {
+            return 0;
+        }
+        return (sim.powerBits[tile >>> 6] & mask) != 0 ? POWER_PELLET : PELLET;
+    }
+
+    // the tile under an entity's centre, kept on the board
+    private int cellOf(int x, int y) {
+        int half = sim.tileSize / 2;
+        int col = Math.min(columns - 1, Math.max(0, (x + half) / sim.tileSize));
+        int row = Math.min(rows - 1, Math.max(0, (y + half) / sim.tileSize));
+        return row * columns + col;
+    }
+}
@@ -0,0 +1,264 @@
+package pacman;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Frame, tick and render timings for one game view, kept in LatencyHistograms by the thread that
+// runs the game. Every second the window is summed up into the lines the F3 overlay shows, and
+// with -Dpacman.metrics=<file> every -Dpacman.metricsInterval seconds (default 10) a summary of
+// that longer window is appended to the file, as CSV or, for a .json file, one JSON object per
+// line. Each record names the machine, so files from different kiosks can be compared. Records
+// are formatted on the game thread and appended by a background writer, so a slow disk never
+// holds up a frame.
+public class PerfStats {
+    static final String METRICS_FILE = System.getProperty("pacman.metrics");
+    static final long METRICS_INTERVAL_NANOS = Long.getLong("pacman.metricsInterval", 10) * 1_000_000_000L;
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final String CSV_HEADER = "time,machine,seconds,frames,dropped_frames,"
+            + "frame_p50_ms,frame_p99_ms,tick_p50_ms,tick_p99_ms,render_p50_ms,render_p99_ms,"
+            + "alloc_mb_per_s,gc_count,gc_ms";
+
+    final LatencyHistogram tickTimes = new LatencyHistogram();
+    final LatencyHistogram renderTimes = new LatencyHistogram();
+    final LatencyHistogram frameTimes = new LatencyHistogram(); // start to start
+    private final LatencyHistogram exportTicks = new LatencyHistogram();
+    private final LatencyHistogram exportRenders = new LatencyHistogram();
+    private final LatencyHistogram exportFrames = new LatencyHistogram();
+    private long frameBudgetNanos;
+    private final com.sun.management.ThreadMXBean allocations;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Path metricsFile;
+    private final String machine; // null without a metrics file
+    private static ExecutorService writer; // appends records for every view, one at a time, in order
+
+    private long lastFrameStart;
+    private long windowStart;
+    private int droppedFrames;
+    private long windowAllocated = -1;
+    private long windowGcCount;
+    private long windowGcMillis;
+    private long exportStart;
+    private int exportDropped;
+    private long exportAllocated;
+    private long exportGcCount;
+    private long exportGcMillis;
+
+    //what the overlay shows, rebuilt once a window
+    String[] lines = {"PERF collecting..."};
+    int windows; // bumped when lines change
+
+    // frames later than one and a half budgets count as dropped
+    PerfStats(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        metricsFile = METRICS_FILE == null ? null : Paths.get(METRICS_FILE);
+        //the host name lookup can block on DNS, so it is done here once rather than on a frame
+        machine = metricsFile == null ? null : machine();
+    }
+
+    // for a view starting a new game, maybe at another tick rate: the time since its last frame
+    // is not counted as dropped, and fresh windows start with the next frame
+    void restart(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+        lastFrameStart = 0;
+        tickTimes.reset();
+        renderTimes.reset();
+        frameTimes.reset();
+        exportTicks.reset();
+        exportRenders.reset();
+        exportFrames.reset();
+        droppedFrames = 0;
+        exportDropped = 0;
+    }
+
+    // call at the start of every frame on the game thread, with System.nanoTime()
+    void frameStarted(long now) {
+        if (lastFrameStart != 0) {
+            long interval = now - lastFrameStart;
+            frameTimes.record(interval);
+            if (interval > frameBudgetNanos * 3 / 2) {
+                droppedFrames += (int) Math.min(Integer.MAX_VALUE, Math.round(interval / (double) frameBudgetNanos) - 1);
+            }
+        } else {
+            windowStart = now;
+            exportStart = now;
+            sampleCounters();
+        }
+        lastFrameStart = now;
+        if (now - windowStart >= WINDOW_NANOS) {
+            closeWindow(now);
+        }
+    }
+
+    void tickTime(long nanos) {
+        tickTimes.record(nanos);
+    }
+
+    void renderTime(long nanos) {
+        renderTimes.record(nanos);
+    }
+
+    private void closeWindow(long now) {
+        long allocated = allocatedBytes();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        double seconds = (now - windowStart) / 1e9;
+        double allocRate = allocated < 0 ? -1 : (allocated - windowAllocated) / seconds / (1 << 20);
+
+        lines = new String[] {
+            String.format(Locale.ROOT, "FRAME p50 %6.2f  p99 %6.2f ms  %3.0f fps",
+                    millis(frameTimes.percentile(50)), millis(frameTimes.percentile(99)), frameTimes.count / seconds),
+            String.format(Locale.ROOT, "TICK  p50 %6.2f  p99 %6.2f ms",
+                    millis(tickTimes.percentile(50)), millis(tickTimes.percentile(99))),
+            String.format(Locale.ROOT, "DRAW  p50 %6.2f  p99 %6.2f ms",
+                    millis(renderTimes.percentile(50)), millis(renderTimes.percentile(99))),
+            String.format(Locale.ROOT, "DROP %d  ALLOC %s  GC %d (%d ms)", droppedFrames,
+                    allocRate < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f MB/s", allocRate),
+                    gcCount - windowGcCount, gcMillis - windowGcMillis)
+        };
+        windows++;
+
+        exportTicks.add(tickTimes);
+        exportRenders.add(renderTimes);
+        exportFrames.add(frameTimes);
+        exportDropped += droppedFrames;
+        tickTimes.reset();
+        renderTimes.reset();
+        frameTimes.reset();
+        droppedFrames = 0;
+        windowStart = now;
+        windowAllocated = allocated;
+        windowGcCount = gcCount;
+        windowGcMillis = gcMillis;
+
+        if (now - exportStart >= METRICS_INTERVAL_NANOS) {
+            if (metricsFile != null) {
+                export(now, allocated, gcCount, gcMillis);
+            }
+            exportTicks.reset();
+            exportRenders.reset();
+            exportFrames.reset();
+            exportDropped = 0;
+            exportStart = now;
+            exportAllocated = allocated;
+            exportGcCount = gcCount;
+            exportGcMillis = gcMillis;
+        }
+    }
+
+    private void sampleCounters() {
+        windowAllocated = allocatedBytes();
+        windowGcCount = gcCount();
+        windowGcMillis = gcMillis();
+        exportAllocated = windowAllocated;
+        exportGcCount = windowGcCount;
+        exportGcMillis = windowGcMillis;
+    }
+
+    private void export(long now, long allocated, long gcCount, long gcMillis) {
+        double seconds = (now - exportStart) / 1e9;
+        double allocRate = allocated < 0 ? -1 : (allocated - exportAllocated) / seconds / (1 << 20);
+        String time = java.time.Instant.now().toString();
+        boolean json = metricsFile.toString().endsWith(".json");
+        String record;
+        if (json) {
+            record = String.format(Locale.ROOT, "{\"time\":\"%s\",\"machine\":\"%s\",\"seconds\":%.1f,"
+                    + "\"frames\":%d,\"droppedFrames\":%d,\"frameP50Ms\":%.3f,\"frameP99Ms\":%.3f,"
+                    + "\"tickP50Ms\":%.3f,\"tickP99Ms\":%.3f,\"renderP50Ms\":%.3f,\"renderP99Ms\":%.3f,"
+                    + "\"allocMbPerS\":%.2f,\"gcCount\":%d,\"gcMs\":%d}%n",
+                    time, machine.replace("\\", "\\\\").replace("\"", "\\\""), seconds, exportFrames.count, exportDropped,
+                    millis(exportFrames.percentile(50)), millis(exportFrames.percentile(99)),
+                    millis(exportTicks.percentile(50)), millis(exportTicks.percentile(99)),
+                    millis(exportRenders.percentile(50)), millis(exportRenders.percentile(99)),
+                    allocRate, gcCount - exportGcCount, gcMillis - exportGcMillis);
+        } else {
+            record = String.format(Locale.ROOT, "%s,%s,%.1f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.2f,%d,%d%n",
+                    time, machine.replace(",", " "), seconds, exportFrames.count, exportDropped,
+                    millis(exportFrames.percentile(50)), millis(exportFrames.percentile(99)),
+                    millis(exportTicks.percentile(50)), millis(exportTicks.percentile(99)),
+                    millis(exportRenders.percentile(50)), millis(exportRenders.percentile(99)),
+                    allocRate, gcCount - exportGcCount, gcMillis - exportGcMillis);
+        }
+        String line = record;
+        writer().execute(() -> append(metricsFile, line, !json));
+    }
+
+    private static synchronized ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "pacman-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writer;
+    }
+
+    // on the writer thread
+    private static void append(Path file, String record, boolean csv) {
+        try {
+            if (csv && (!Files.exists(file) || Files.size(file) == 0)) {
+                record = CSV_HEADER + System.lineSeparator() + record;
+            }
+            Files.write(file, record.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("could not write metrics to " + file + ": " + e);
+        }
+    }
+
+    // host, OS, CPU count and JVM, enough to tell kiosks apart
+    static String machine() {
+        String host = System.getenv("HOSTNAME");
+        if (host == null) {
+            host = System.getenv("COMPUTERNAME");
+        }
+        if (host == null) {
+            try {
+                host = java.net.InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                host = null;
+            }
+        }
+        return (host == null ? "unknown" : host) + " " + System.getProperty("os.name") + "/" + System.getProperty("os.arch")
+                + " " + Runtime.getRuntime().availableProcessors() + "cpu java" + System.getProperty("java.version");
+    }
+
+    // bytes allocated so far by the calling thread, which is the game thread, or -1 if unknown
+    private long allocatedBytes() {
+        return allocations == null ? -1 : allocations.getCurrentThreadAllocatedBytes();
+    }
+
+    private long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
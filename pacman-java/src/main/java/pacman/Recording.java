@@ -0,0 +1,169 @@
+package pacman;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// The seed and inputs of one game. The simulation only changes state inside step() and only
+// draws randomness from its seeded GameRandom, so feeding the same inputs on the same ticks to a
+// Simulation built from the same seed reproduces the game exactly.
+//
+// File format, big-endian: magic "PMRC", version byte, seed (long), intro ticks, initial lives
+// and a hash of the levels played (Level.hash) as varints, the event count, then one varint per event holding
+// (ticks since the previous event << 2 | direction). Ends with the final tick, the final score
+// and a game-over flag. A typical game is a few hundred bytes.
+public class Recording {
+    static final int MAGIC = 0x504d5243;
+    static final int VERSION = 3; // 2: ghosts move tile to tile, 3: power pellets and fruit
+    static final String EXTENSION = ".pmr";
+    //-Dpacman.record=<dir> saves every game played into that directory
+    static final String DIRECTORY = System.getProperty("pacman.record");
+
+    long seed;
+    int introTicks;
+    int initialLives;
+    int layoutHash;
+
+    int eventCount;
+    long[] eventTicks = new long[64];
+    char[] eventInputs = new char[64];
+
+    long endTick;
+    int finalScore;
+    boolean gameOver;
+
+    Recording(long seed, int introTicks, int initialLives, int layoutHash) {
+        this.seed = seed;
+        this.introTicks = introTicks;
+        this.initialLives = initialLives;
+        this.layoutHash = layoutHash;
+    }
+
+    // starts recording sim, which must have just been built or restarted with seed, or returns
+    // null when recording is switched off
+    static Recording start(Simulation sim, long seed) {
+        if (DIRECTORY == null) {
+            return null;
+        }
+        Recording recording = new Recording(seed, sim.introTicks, sim.initialLives, Level.hash(sim.levels));
+        sim.recording = recording;
+        return recording;
+    }
+
+    void add(long tick, char input) {
+        if (eventCount == eventTicks.length) {
+            eventTicks = Arrays.copyOf(eventTicks, eventCount * 2);
+            eventInputs = Arrays.copyOf(eventInputs, eventCount * 2);
+        }
+        eventTicks[eventCount] = tick;
+        eventInputs[eventCount] = input;
+        eventCount++;
+    }
+
+    // a Simulation in the state this recording started from, given the levels it was played on
+    Simulation newSimulation(Level[] levels) {
+        return new Simulation(introTicks, initialLives, seed, null, levels);
+    }
+
+    // records how the game ended and writes it to DIRECTORY
+    void save(Simulation sim) {
+        endTick = sim.tick;
+        finalScore = sim.score;
+        gameOver = sim.gameOver;
+        sim.recording = null;
+        Path file = Path.of(DIRECTORY, "pacman-" + Long.toHexString(seed) + EXTENSION);
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                write(out);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save recording " + file + ": " + e);
+        }
+    }
+
+    void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        writeVarint(out, introTicks);
+        writeVarint(out, initialLives);
+        writeVarint(out, layoutHash);
+        writeVarint(out, eventCount);
+        long previous = 0;
+        for (int i = 0; i < eventCount; i++) {
+            writeVarint(out, (eventTicks[i] - previous) << 2 | directionCode(eventInputs[i]));
+            previous = eventTicks[i];
+        }
+        writeVarint(out, endTick);
+        writeVarint(out, finalScore);
+        out.writeBoolean(gameOver);
+        out.flush();
+    }
+
+    static Recording read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported recording version " + version);
+        }
+        Recording recording = new Recording(in.readLong(), (int) readVarint(in), (int) readVarint(in), (int) readVarint(in));
+        int count = (int) readVarint(in);
+        long tick = 0;
+        for (int i = 0; i < count; i++) {
+            long event = readVarint(in);
+            tick += event >>> 2;
+            recording.add(tick, Simulation.DIRECTIONS[(int) (event & 3)]);
+        }
+        recording.endTick = readVarint(in);
+        recording.finalScore = (int) readVarint(in);
+        recording.gameOver = in.readBoolean();
+        return recording;
+    }
+
+    static Recording read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    private static int directionCode(char direction) {
+        for (int i = 0; i < Simulation.DIRECTIONS.length; i++) {
+            if (Simulation.DIRECTIONS[i] == direction) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("not a direction: " + direction);
+    }
+
+    // unsigned LEB128, 7 bits per byte with the high bit set on all but the last
+    // (ints go through as their unsigned 32-bit value so a negative hash stays at 5 bytes)
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        writeVarint(out, value & 0xFFFFFFFFL);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint too long");
+    }
+}
@@ -0,0 +1,87 @@
+package pacman;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Replays recordings headless and as fast as the simulation can step, checking that each one
+// still ends on the recorded tick with the recorded score. Pointed at a directory it runs every
+// recording in it as a regression suite, in parallel, and exits 1 if any of them diverged.
+// Recordings made with -Dpacman.levels need the same setting to replay.
+//
+// java -cp target/classes pacman.Replayer <recording.pmr | directory>
+public class Replayer {
+    // steps a fresh simulation through the recording and returns it in its final state
+    static Simulation replay(Recording recording, Level[] levels) {
+        Simulation sim = recording.newSimulation(levels);
+        int next = 0;
+        while (!sim.gameOver && sim.tick < recording.endTick) {
+            char input = Simulation.NO_INPUT;
+            if (next < recording.eventCount && recording.eventTicks[next] == sim.tick) {
+                input = recording.eventInputs[next++];
+            }
+            sim.step(input);
+        }
+        return sim;
+    }
+
+    // null if the replay matches the recording, otherwise what differed
+    static String verify(Recording recording, Level[] levels) {
+        if (recording.layoutHash != Level.hash(levels)) {
+            return "recorded on different levels";
+        }
+        Simulation sim = replay(recording, levels);
+        if (sim.score != recording.finalScore || sim.tick != recording.endTick || sim.gameOver != recording.gameOver) {
+            return "expected score " + recording.finalScore + " at tick " + recording.endTick
+                    + (recording.gameOver ? " (game over)" : "")
+                    + ", replay got " + sim.score + " at tick " + sim.tick
+                    + (sim.gameOver ? " (game over)" : "");
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: Replayer <recording" + Recording.EXTENSION + " | directory>");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> listing = Files.list(path)) {
+                files = listing.filter(f -> f.toString().endsWith(Recording.EXTENSION)).sorted().collect(Collectors.toList());
+            }
+        } else {
+            files = List.of(path);
+        }
+
+        Level[] levels = Level.pack();
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        long totalTicks = files.parallelStream().mapToLong(file -> {
+            try {
+                Recording recording = Recording.read(file);
+                String problem = verify(recording, levels);
+                if (problem != null) {
+                    failures.incrementAndGet();
+                    System.out.println("FAIL " + file.getFileName() + ": " + problem);
+                }
+                return recording.endTick;
+            } catch (IOException e) {
+                failures.incrementAndGet();
+                System.out.println("FAIL " + file.getFileName() + ": " + e.getMessage());
+                return 0;
+            }
+        }).sum();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d recordings, %d failed, %d ticks replayed in %.2f s (%.0f ticks/s)%n",
+                files.size(), failures.get(), totalTicks, seconds, totalTicks / seconds);
+        if (failures.get() > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package pacman;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+// Plays sounds through one SourceDataLine fed by a single long-lived mixer thread.
+// Every sound is synthesised to PCM once up front. play() just bumps a per-sound counter that
+// the mixer drains, so requests from any thread are lock-free, and a burst of the same sound
+// within one buffer collapses into a single voice instead of piling up.
+public class SampledAudio implements Audio {
+    static final int SAMPLE_RATE = 22050;
+    static final int BUFFER_FRAMES = 512; //about 23 ms per write
+    static final int MAX_VOICES = 8;
+
+    private final SourceDataLine line;
+    private final short[][] clips;
+    private final AtomicIntegerArray pending = new AtomicIntegerArray(Sound.values().length);
+    private final Thread mixer;
+
+    //mixer thread only
+    private final short[][] voiceClip = new short[MAX_VOICES][];
+    private final int[] voicePosition = new int[MAX_VOICES];
+    private final int[] mix = new int[BUFFER_FRAMES];
+    private final byte[] out = new byte[BUFFER_FRAMES * 2];
+
+    SampledAudio() throws LineUnavailableException {
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, BUFFER_FRAMES * 2 * 4);
+        line.start();
+
+        clips = new short[Sound.values().length][];
+        clips[Sound.START.ordinal()] = beeps(new int[] {660, 880}, 90, 120);
+        clips[Sound.HIT.ordinal()] = beeps(new int[] {220}, 80, 80);
+        clips[Sound.GAME_OVER.ordinal()] = beeps(new int[] {440, 330, 220}, 130, 170);
+
+        mixer = new Thread(this::mixLoop, "pacman-audio");
+        mixer.setDaemon(true);
+        mixer.start();
+    }
+
+    @Override
+    public void play(Sound sound) {
+        pending.incrementAndGet(sound.ordinal());
+        LockSupport.unpark(mixer);
+    }
+
+    private void mixLoop() {
+        while (true) {
+            for (int sound = 0; sound < clips.length; sound++) {
+                if (pending.getAndSet(sound, 0) > 0) {
+                    startVoice(clips[sound]);
+                }
+            }
+            if (!mixBuffer()) {
+                //nothing playing: sleep until play() wakes us
+                LockSupport.park(this);
+                continue;
+            }
+            line.write(out, 0, out.length); //blocks, which paces this thread to the device
+        }
+    }
+
+    private void startVoice(short[] clip) {
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceClip[i] == null) {
+                voiceClip[i] = clip;
+                voicePosition[i] = 0;
+                return;
+            }
+        }
+        //all voices busy, the new sound is dropped
+    }
+
+    // mixes the next buffer of every active voice into out, false if nothing is playing
+    private boolean mixBuffer() {
+        boolean active = false;
+        java.util.Arrays.fill(mix, 0);
+        for (int i = 0; i < MAX_VOICES; i++) {
+            short[] clip = voiceClip[i];
+            if (clip == null) {
+                continue;
+            }
+            active = true;
+            int position = voicePosition[i];
+            int count = Math.min(BUFFER_FRAMES, clip.length - position);
+            for (int frame = 0; frame < count; frame++) {
+                mix[frame] += clip[position + frame];
+            }
+            voicePosition[i] = position + count;
+            if (voicePosition[i] >= clip.length) {
+                voiceClip[i] = null;
+            }
+        }
+        if (!active) {
+            return false;
+        }
+        for (int frame = 0; frame < BUFFER_FRAMES; frame++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[frame]));
+            out[frame * 2] = (byte) sample;
+            out[frame * 2 + 1] = (byte) (sample >> 8);
+        }
+        return true;
+    }
+
+    // square-wave beeps at the given pitches, one every spacingMillis, each toneMillis long
+    // with a short fade at both ends so they do not click
+    static short[] beeps(int[] frequencies, int toneMillis, int spacingMillis) {
+        int spacing = SAMPLE_RATE * spacingMillis / 1000;
+        int tone = SAMPLE_RATE * toneMillis / 1000;
+        int fade = SAMPLE_RATE / 200;
+        short[] clip = new short[spacing * (frequencies.length - 1) + tone];
+        for (int b = 0; b < frequencies.length; b++) {
+            int period = SAMPLE_RATE / frequencies[b];
+            for (int i = 0; i < tone; i++) {
+                double envelope = Math.min(1.0, Math.min(i, tone - 1 - i) / (double) fade);
+                int level = (i % period) < period / 2 ? 6000 : -6000;
+                clip[b * spacing + i] = (short) (level * envelope);
+            }
+        }
+        return clip;
+    }
+}
@@ -0,0 +1,79 @@
+package pacman;
+
+import java.awt.CardLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+// Switches the window between the start menu and the game. Both scenes are made once and kept
+// for the life of the process, as cards of one panel: picking a difficulty resets the game in
+// place and quitting goes back to the same menu, so a kiosk that runs for weeks does not gather
+// panels, timers, threads or images. Only the scene on show has its timer or loop running.
+class SceneManager implements App.StartMenuListener {
+    private static final String MENU = "menu";
+    private static final String GAME = "game";
+
+    // a game view that can start over with new settings without being rebuilt
+    interface GameScene {
+        void newGame(int tickMillis, int initialLives);
+    }
+
+    private final JFrame frame;
+    private final CardLayout cards = new CardLayout();
+    private final JPanel scenes;
+    private final App.StartMenuPanel menu;
+    private Component game; // made on the first difficulty picked
+    private Component showing;
+
+    SceneManager(JFrame frame, Dimension menuSize) {
+        this.frame = frame;
+        //sized to the scene on show rather than the largest, so the window still follows the level
+        scenes = new JPanel(cards) {
+            @Override
+            public Dimension getPreferredSize() {
+                return showing != null ? showing.getPreferredSize() : super.getPreferredSize();
+            }
+        };
+        menu = new App.StartMenuPanel(this);
+        menu.setPreferredSize(menuSize);
+        scenes.add(menu, MENU);
+        frame.setContentPane(scenes);
+    }
+
+    void showMenu() {
+        show(menu, MENU);
+        menu.start();
+    }
+
+    @Override
+    public void onDifficultySelected(App.DifficultySettings settings) {
+        menu.stop();
+        if (game == null) {
+            Runnable quitAction = () -> SwingUtilities.invokeLater(this::showMenu);
+            game = App.ACTIVE_RENDERING
+                    ? new GameCanvas(settings.loopDelay, settings.startingLives, quitAction)
+                    : new PacMan(settings.loopDelay, settings.startingLives, quitAction);
+            scenes.add(game, GAME);
+        } else {
+            ((GameScene) game).newGame(settings.loopDelay, settings.startingLives);
+        }
+        show(game, GAME);
+        SwingUtilities.invokeLater(game::requestFocusInWindow);
+    }
+
+    @Override
+    public void onQuitRequested() {
+        menu.stop();
+        frame.dispose();
+    }
+
+    private void show(Component scene, String name) {
+        showing = scene;
+        cards.show(scenes, name);
+        frame.pack();
+        frame.revalidate();
+        frame.repaint();
+    }
+}
@@ -0,0 +1,788 @@
+package pacman;
+
+import java.nio.ByteBuffer;
+
+// Game state and rules with no AWT/Swing dependency. PacMan draws it and feeds it input,
+// headless callers can drive step() as fast as they like.
+public class Simulation {
+    interface Listener {
+        void onRoundStart();
+        void onHeroHit();
+        void onGameOver();
+    }
+
+    class Entity {
+        int x;
+        int y;
+        int width;
+        int height;
+        int sprite;
+
+        int startX;
+        int startY;
+        int prevX; // position at the start of the current tick, for interpolated drawing
+        int prevY;
+        char direction = 'U'; // U D L R
+        int velocityX = 0;
+        int velocityY = 0;
+
+        Entity(int sprite, int x, int y, int width, int height) {
+            this.sprite = sprite;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.startX = x;
+            this.startY = y;
+            this.prevX = x;
+            this.prevY = y;
+        }
+
+        void updateDirection(char direction) {
+            char prevDirection = this.direction;
+            this.direction = direction;
+            updateVelocity();
+            this.x += this.velocityX;
+            this.y += this.velocityY;
+            if (collidesWithWall(this)) {
+                this.x -= this.velocityX;
+                this.y -= this.velocityY;
+                this.direction = prevDirection;
+                updateVelocity();
+            }
+        }
+
+        void updateVelocity() {
+            if (this.direction == 'U') {
+                this.velocityX = 0;
+                this.velocityY = -tileSize/4;
+            }
+            else if (this.direction == 'D') {
+                this.velocityX = 0;
+                this.velocityY = tileSize/4;
+            }
+            else if (this.direction == 'L') {
+                this.velocityX = -tileSize/4;
+                this.velocityY = 0;
+            }
+            else if (this.direction == 'R') {
+                this.velocityX = tileSize/4;
+                this.velocityY = 0;
+            }
+        }
+
+        void reset() {
+            this.x = this.startX;
+            this.y = this.startY;
+            this.prevX = this.startX;
+            this.prevY = this.startY;
+        }
+    }
+
+    static final char NO_INPUT = 0;
+    static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'}; //up down left right
+
+    //ghosts alternate between heading for their own corner and chasing the hero
+    static final int SCATTER_TICKS = 140;
+    static final int CHASE_TICKS = 400;
+    //a power pellet frightens every ghost for a while, and they can be eaten
+    static final int FRIGHT_TICKS = 120;
+    static final int FRIGHT_WARNING_TICKS = 40; // views flash frightened ghosts for this long before it ends
+    static final int PELLET_POINTS = 10;
+    static final int POWER_PELLET_POINTS = 50;
+    static final int GHOST_POINTS = 200; // doubled for each further ghost eaten on one power pellet
+    //bonus fruit shows on the fruit tile after this many pellets are eaten on a level
+    static final int[] FRUIT_PELLETS = {70, 170};
+    static final int[] FRUIT_POINTS = {100, 300};
+    static final int FRUIT_TICKS = 190;
+    static final int INTRO_MILLIS = 1200; // the READY pause, in wall time whatever the tick length
+
+    //timers on the wheel
+    static final int INTRO_TIMER = 0; // scheduled while the READY pause lasts
+    static final int PHASE_TIMER = 1; // next scatter/chase switch
+    static final int FRIGHT_TIMER = 2;
+    static final int FRUIT_TIMER = 3;
+    static final int TIMER_COUNT = 4;
+
+    //sprite ids, the view maps these to images
+    static final int HERO = 0;
+    static final int BLUE_GHOST = 1;
+    static final int ORANGE_GHOST = 2;
+    static final int PINK_GHOST = 3;
+    static final int RED_GHOST = 4;
+    static final int SCARED_GHOST = 5;
+    static final int CHERRY = 6;
+    static final int CHERRY2 = 7;
+    static final int[] FRUIT_SPRITES = {CHERRY, CHERRY2};
+
+    //X = wall, O = skip, P = pac man, ' ' = food, * = power pellet, f = where fruit shows
+    //Ghosts: b = blue, o = orange, p = pink, r = red
+    static final String[] DEFAULT_LAYOUT = {
+        "XXXXXXXXXXXXXXXXXXX",
+        "X        X        X",
+        "X XX XXX X XXX XX X",
+        "X*               *X",
+        "X XX X XXXXX X XX X",
+        "X    X       X    X",
+        "XXXX XXXX XXXX XXXX",
+        "OOOX X       X XOOO",
+        "XXXX X XXrXX X XXXX",
+        "O       bpo       O",
+        "XXXX X XXXXX X XXXX",
+        "OOOX X   f   X XOOO",
+        "XXXX X XXXXX X XXXX",
+        "X        X        X",
+        "X XX XXX X XXX XX X",
+        "X  X     P     X  X",
+        "XX X X XXXXX X X XX",
+        "X*   X   X   X   *X",
+        "X XXXXXX X XXXXXX X",
+        "X                 X",
+        "XXXXXXXXXXXXXXXXXXX"
+    };
+
+    static final int TILE_SIZE = 32;
+
+    int tileSize = TILE_SIZE;
+    int rowCount;
+    int columnCount;
+    int boardWidth;
+    int boardHeight;
+    Level[] levels; // played in order, moving on when the pellets run out
+    int levelIndex;
+    Level level;
+
+    boolean[] wallGrid; // row * columnCount + col, true = wall
+    long[] pelletBits; // one bit per tile, same indexing as wallGrid
+    long[] powerBits; // which of those are power pellets, fixed for the level
+    long[] startPellets; // pelletBits as the level starts
+    int pelletCount;
+    int levelPellets; // pellets the level started with
+    int pelletSize = 4;
+    int pelletOffset = (tileSize - pelletSize) / 2;
+    int levelVersion = 0; // bumped by parseLevel so views know to rebuild cached maze images
+
+    EntityStore ghosts;
+    SpatialGrid ghostGrid; // kept in step with ghost positions wherever they change
+    Entity hero;
+
+    MazeGraph graph;
+    int chaseTarget; // the hero's tile
+    int[] scatterTargets; // one per corner
+    //BFS fields towards those targets, null on levels too big for them (see MazeGraph.MAX_FIELD_TILES)
+    MazeGraph.DistanceField chaseField; // shared by every ghost
+    MazeGraph.DistanceField[] scatterFields; // fixed for the level
+    boolean scatterMode = true;
+    int ghostsEaten; // since the last power pellet
+    int fruitTile = -1; // the level's f tile, -1 when it has none
+    int fruitIndex = -1; // into FRUIT_SPRITES while a fruit shows, else -1
+
+    //every timed effect, including the intro pause and the scatter/chase phases
+    TimerWheel timers = new TimerWheel(1024, TIMER_COUNT);
+
+    char[] directions = DIRECTIONS;
+    GameRandom random;
+    Listener listener;
+    Recording recording; // when set, step() appends every input to it
+    int score = 0;
+    int lives;
+    int initialLives;
+    int introTicks;
+    long tick = 0;
+    boolean gameOver = false;
+
+    // the pause before each round in ticks of the given length, about INTRO_MILLIS of wall time
+    static int introTicks(int tickMillis) {
+        return Math.max(1, INTRO_MILLIS / tickMillis);
+    }
+
+    Simulation(int introTicks, int initialLives) {
+        this(introTicks, initialLives, System.nanoTime(), null);
+    }
+
+    Simulation(int introTicks, int initialLives, long seed, Listener listener) {
+        this(introTicks, initialLives, seed, listener, new Level[] {Level.DEFAULT});
+    }
+
+    Simulation(int introTicks, int initialLives, long seed, Listener listener, Level[] levels) {
+        this.introTicks = introTicks;
+        this.initialLives = initialLives;
+        this.lives = initialLives;
+        this.random = new GameRandom(seed);
+        this.listener = listener;
+
+        this.levels = levels;
+        loadLevel(levels[0]);
+        for (int i = 0; i < ghosts.count; i++) {
+            updateGhostDirection(i, random.nextInt(4));
+        }
+        ghostGrid.update(ghosts, 0, ghosts.count);
+        timers.schedule(PHASE_TIMER, tick + SCATTER_TICKS);
+        startRoundIntro();
+    }
+
+    // replaces the level list with this one layout
+    void loadLayout(String[] layout) {
+        levels = new Level[] {Level.of("layout", layout)};
+        levelIndex = 0;
+        loadLevel(levels[0]);
+    }
+
+    void loadLevel(Level level) {
+        if (level == this.level && startPellets != null) {
+            //starting the same level over, as every restart on a one-level pack does
+            reloadLevel();
+        } else {
+            this.level = level;
+            rowCount = level.rowCount;
+            columnCount = level.columnCount;
+            boardWidth = columnCount * tileSize;
+            boardHeight = rowCount * tileSize;
+            parseLevel();
+        }
+        fruitIndex = -1;
+        timers.cancel(FRUIT_TIMER);
+        timers.cancel(FRIGHT_TIMER);
+    }
+
+    public void parseLevel() {
+        wallGrid = new boolean[rowCount * columnCount];
+        pelletBits = new long[(rowCount * columnCount + 63) / 64];
+        powerBits = new long[pelletBits.length];
+        pelletCount = 0;
+        fruitTile = -1;
+        ghosts = new EntityStore(tileSize, 4);
+        hero = null;
+        levelVersion++;
+
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                char ch = level.tile(r, c);
+
+                int x = c * tileSize;
+                int y = r * tileSize;
+
+                if (ch == 'X') { // wall
+                    wallGrid[r * columnCount + c] = true;
+                } else if (ch == 'b') { // blue ghost
+                    ghosts.add(BLUE_GHOST, x, y);
+                } else if (ch == 'o') { // orange ghost
+                    ghosts.add(ORANGE_GHOST, x, y);
+                } else if (ch == 'p') { // pink ghost
+                    ghosts.add(PINK_GHOST, x, y);
+                } else if (ch == 'r') { // red ghost
+                    ghosts.add(RED_GHOST, x, y);
+                } else if (ch == 'P') { // player
+                    hero = new Entity(HERO, x, y, tileSize, tileSize);
+                } else if (ch == ' ') { // pellet
+                    int tile = r * columnCount + c;
+                    pelletBits[tile >>> 6] |= 1L << tile;
+                    pelletCount++;
+                } else if (ch == '*') { // power pellet
+                    int tile = r * columnCount + c;
+                    pelletBits[tile >>> 6] |= 1L << tile;
+                    powerBits[tile >>> 6] |= 1L << tile;
+                    pelletCount++;
+                } else if (ch == 'f') { // fruit
+                    fruitTile = r * columnCount + c;
+                }
+            }
+        }
+        levelPellets = pelletCount;
+        startPellets = pelletBits.clone();
+
+        if (hero == null) {
+            throw new IllegalArgumentException("level " + level.name + " has no P tile");
+        }
+
+        ghostGrid = new SpatialGrid(boardWidth, boardHeight, tileSize);
+        ghostGrid.rebuild(ghosts);
+        graph = new MazeGraph(wallGrid, rowCount, columnCount);
+        //top right, top left, bottom right, bottom left, like the arcade's four ghosts
+        int[][] corners = {{0, columnCount - 1}, {0, 0}, {rowCount - 1, columnCount - 1}, {rowCount - 1, 0}};
+        scatterTargets = new int[corners.length];
+        for (int i = 0; i < corners.length; i++) {
+            scatterTargets[i] = nearestOpenTile(corners[i][0], corners[i][1]);
+        }
+        chaseTarget = -1;
+        if (wallGrid.length <= MazeGraph.MAX_FIELD_TILES) {
+            chaseField = graph.new DistanceField();
+            scatterFields = new MazeGraph.DistanceField[corners.length];
+            for (int i = 0; i < corners.length; i++) {
+                scatterFields[i] = graph.new DistanceField();
+                scatterFields[i].recompute(scatterTargets[i]);
+            }
+        } else {
+            chaseField = null;
+            scatterFields = null;
+        }
+    }
+
+    // Leaves the loaded level as parseLevel would, with every pellet back and everyone on their
+    // start tile, but keeps the walls, graph, distance fields and arrays it already has.
+    private void reloadLevel() {
+        System.arraycopy(startPellets, 0, pelletBits, 0, pelletBits.length);
+        pelletCount = levelPellets;
+        ghosts.restart();
+        hero.reset();
+        hero.direction = 'U';
+        hero.velocityX = 0;
+        hero.velocityY = 0;
+        ghostGrid.rebuild(ghosts);
+        chaseTarget = -1;
+        levelVersion++;
+    }
+
+    // searches outwards in diamonds, taking the lowest tile index among equally near tiles
+    private int nearestOpenTile(int row, int col) {
+        for (int d = 0; d < rowCount + columnCount; d++) {
+            for (int r = Math.max(0, row - d); r <= Math.min(rowCount - 1, row + d); r++) {
+                int k = d - Math.abs(r - row);
+                if (col - k >= 0 && col - k < columnCount && !wallGrid[r * columnCount + col - k]) {
+                    return r * columnCount + col - k;
+                }
+                if (k > 0 && col + k >= 0 && col + k < columnCount && !wallGrid[r * columnCount + col + k]) {
+                    return r * columnCount + col + k;
+                }
+            }
+        }
+        return row * columnCount + col;
+    }
+
+    // advances one tick; input is a direction char or NO_INPUT
+    public void step(char input) {
+        if (gameOver) {
+            return;
+        }
+        hero.prevX = hero.x;
+        hero.prevY = hero.y;
+        ghosts.savePositions();
+        if (input != NO_INPUT) {
+            if (recording != null) {
+                recording.add(tick, input);
+            }
+            hero.updateDirection(input);
+        }
+        for (int timer = timers.poll(tick); timer != TimerWheel.NONE; timer = timers.poll(tick)) {
+            timerFired(timer);
+        }
+        if (!inIntro()) {
+            updateGame();
+        }
+        tick++;
+    }
+
+    private void timerFired(int timer) {
+        if (timer == PHASE_TIMER) {
+            scatterMode = !scatterMode;
+            timers.schedule(PHASE_TIMER, tick + (scatterMode ? SCATTER_TICKS : CHASE_TICKS));
+        } else if (timer == FRIGHT_TIMER) {
+            java.util.Arrays.fill(ghosts.frightened, 0, ghosts.count, false);
+        } else if (timer == FRUIT_TIMER) {
+            fruitIndex = -1;
+        }
+        //INTRO_TIMER firing just ends the pause
+    }
+
+    boolean inIntro() {
+        return timers.isScheduled(INTRO_TIMER);
+    }
+
+    public void updateGame() {
+        hero.x += hero.velocityX;
+        hero.y += hero.velocityY;
+
+        // wall collisions
+        if (collidesWithWall(hero)) {
+            hero.x -= hero.velocityX;
+            hero.y -= hero.velocityY;
+        }
+
+        chaseTarget = graph.clampedTile(hero.x, hero.y, tileSize);
+        if (!scatterMode && chaseField != null && chaseField.target != chaseTarget) {
+            chaseField.recompute(chaseTarget);
+        }
+
+        // ghost interactions and movement. A ghost's own move cannot change whether the next one
+        // overlaps the hero, so hits are found ahead from the ghosts near the hero, and the
+        // ghosts between two hits steer and advance as one run.
+        EntityStore ghosts = this.ghosts;
+        int from = 0;
+        while (true) {
+            int hit = ghostGrid.firstOverlap(ghosts, from, hero.x, hero.y);
+            moveGhosts(from, hit < 0 ? ghosts.count : hit);
+            if (hit < 0) {
+                break;
+            }
+            if (ghosts.frightened[hit]) {
+                eatGhost(hit);
+            } else {
+                lives -= 1;
+                if (listener != null) {
+                    listener.onHeroHit();
+                }
+                if (lives == 0) {
+                    gameOver = true;
+                    if (listener != null) {
+                        listener.onGameOver();
+                    }
+                    return;
+                }
+                resetEntities();
+                startRoundIntro();
+            }
+            moveGhosts(hit, hit + 1);
+            from = hit + 1;
+        }
+
+        // pellet collision
+        eatPellets(hero);
+        if (fruitIndex >= 0) {
+            int fruitX = (fruitTile % columnCount) * tileSize;
+            int fruitY = (fruitTile / columnCount) * tileSize;
+            if (hero.x < fruitX + tileSize && hero.x + hero.width > fruitX
+                    && hero.y < fruitY + tileSize && hero.y + hero.height > fruitY) {
+                score += FRUIT_POINTS[fruitIndex];
+                fruitIndex = -1;
+                timers.cancel(FRUIT_TIMER);
+            }
+        }
+
+        if (pelletCount == 0) {
+            levelIndex = (levelIndex + 1) % levels.length;
+            loadLevel(levels[levelIndex]);
+            resetEntities();
+            startRoundIntro();
+        }
+    }
+
+    // Ghosts only make decisions on tile centres, where the exits are known from the graph, and
+    // a legal exit means the whole next tile is open. Between centres they just advance.
+    void moveGhosts(int from, int to) {
+        EntityStore ghosts = this.ghosts;
+        for (int i = from; i < to; i++) {
+            if (ghosts.x[i] % tileSize == 0 && ghosts.y[i] % tileSize == 0) {
+                steerGhost(i);
+            }
+        }
+        ghosts.advance(from, to);
+        ghostGrid.update(ghosts, from, to);
+    }
+
+    // Called when a ghost sits exactly on a tile. In a straight corridor it keeps going, at a
+    // junction it takes the exit closest to its target, never reversing unless at a dead end.
+    // Closest is by BFS distance where the level has fields, by straight-line tile distance otherwise.
+    // Frightened ghosts move at half speed and turn at random instead. Speed only changes here,
+    // on a tile centre, so ghosts always land on the next one.
+    // A ghost with no way out stops until a reset moves it.
+    void steerGhost(int ghost) {
+        EntityStore ghosts = this.ghosts;
+        int mask = ghostExits(ghosts.x[ghost], ghosts.y[ghost]);
+        if (mask == 0) {
+            ghosts.velocityX[ghost] = 0;
+            ghosts.velocityY[ghost] = 0;
+            return;
+        }
+        int speed = ghosts.frightened[ghost] ? tileSize / 8 : tileSize / 4;
+        int tile = (ghosts.y[ghost] / tileSize) * columnCount + ghosts.x[ghost] / tileSize;
+        char heading = ghosts.direction(ghost);
+        if (!graph.isJunction(tile) && (mask & MazeGraph.exitBit(heading)) != 0) {
+            ghosts.setDirection(ghost, ghosts.direction[ghost], speed);
+            return;
+        }
+        char reverse = MazeGraph.opposite(heading);
+        if (ghosts.frightened[ghost]) {
+            //exit bits are in DIRECTIONS order, so the k-th set bit is a direction code
+            int choices = mask & ~MazeGraph.exitBit(reverse);
+            if (choices == 0) {
+                choices = mask;
+            }
+            for (int k = random.nextInt(Integer.bitCount(choices)); k > 0; k--) {
+                choices &= choices - 1;
+            }
+            ghosts.setDirection(ghost, Integer.numberOfTrailingZeros(choices), speed);
+            return;
+        }
+        int corner = (ghosts.sprite[ghost] - 1) & 3;
+        int target = scatterMode ? scatterTargets[corner] : chaseTarget;
+        MazeGraph.DistanceField field = scatterFields == null ? null : scatterMode ? scatterFields[corner] : chaseField;
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int code = 0; code < DIRECTIONS.length; code++) {
+            char direction = DIRECTIONS[code];
+            if (direction == reverse || (mask & MazeGraph.exitBit(direction)) == 0) {
+                continue;
+            }
+            int next = graph.neighbour(tile, direction);
+            int distance = field != null ? field.distance[next] : graph.manhattan(next, target);
+            if (best < 0 || distance < bestDistance) {
+                best = code;
+                bestDistance = distance;
+            }
+        }
+        if (best < 0) {
+            best = directionCode(reverse); // a dead end, and the mask is not empty
+        }
+        ghosts.setDirection(ghost, best, speed);
+    }
+
+    // every ghost turns around and can be eaten until FRIGHT_TIMER fires; another power pellet
+    // restarts the clock and the points
+    void frighten() {
+        EntityStore ghosts = this.ghosts;
+        for (int i = 0; i < ghosts.count; i++) {
+            ghosts.frightened[i] = true;
+            int speed = Math.abs(ghosts.velocityX[i] + ghosts.velocityY[i]);
+            ghosts.setDirection(i, directionCode(MazeGraph.opposite(ghosts.direction(i))), speed);
+        }
+        ghostsEaten = 0;
+        timers.schedule(FRIGHT_TIMER, tick + FRIGHT_TICKS);
+    }
+
+    // an eaten ghost goes back to its start, no longer frightened
+    void eatGhost(int ghost) {
+        score += GHOST_POINTS << Math.min(ghostsEaten, 3);
+        ghostsEaten++;
+        ghosts.frightened[ghost] = false;
+        ghosts.reset(ghost);
+        updateGhostDirection(ghost, random.nextInt(4));
+    }
+
+    // exits a ghost may take from the tile at x, y: the graph's, minus the outermost columns,
+    // which ghosts never enter
+    int ghostExits(int x, int y) {
+        int col = x / tileSize;
+        int row = y / tileSize;
+        if (x < 0 || y < 0 || col >= columnCount || row >= rowCount) {
+            return 0;
+        }
+        int mask = graph.exits[row * columnCount + col];
+        if (col <= 1) {
+            mask &= ~MazeGraph.LEFT;
+        }
+        if (col >= columnCount - 2) {
+            mask &= ~MazeGraph.RIGHT;
+        }
+        return mask;
+    }
+
+    // Entity.updateDirection for a ghost: turn and take one step, unless that step hits a wall or
+    // leaves the tiles ghostExits allows, in which case it stays put and keeps its old heading
+    void updateGhostDirection(int ghost, int code) {
+        EntityStore ghosts = this.ghosts;
+        int previous = ghosts.direction[ghost];
+        int speed = tileSize / 4;
+        ghosts.setDirection(ghost, code, speed);
+        int x = ghosts.x[ghost] + ghosts.velocityX[ghost];
+        int y = ghosts.y[ghost] + ghosts.velocityY[ghost];
+        if (collidesWithWall(x, y, ghosts.size, ghosts.size) || x < tileSize || x + ghosts.size > boardWidth - tileSize
+                || y < 0 || y + ghosts.size > boardHeight) {
+            ghosts.setDirection(ghost, previous, speed);
+        } else {
+            ghosts.x[ghost] = x;
+            ghosts.y[ghost] = y;
+        }
+    }
+
+    static int directionCode(char direction) {
+        return direction == 'U' ? 0 : direction == 'D' ? 1 : direction == 'L' ? 2 : 3;
+    }
+
+    public void restart() {
+        levelIndex = 0;
+        loadLevel(levels[0]);
+        resetEntities();
+        lives = initialLives;
+        score = 0;
+        ghostsEaten = 0;
+        gameOver = false;
+        scatterMode = true;
+        tick = 0;
+        timers.clear();
+        timers.schedule(PHASE_TIMER, tick + SCATTER_TICKS);
+        startRoundIntro();
+    }
+
+    // restarts from a fresh seed, leaving the game in the same state as a new
+    // Simulation built with that seed
+    public void restart(long seed) {
+        random.setSeed(seed);
+        restart();
+    }
+
+    // the pause counts from the current tick, so a round started mid-tick pauses for the rest of it
+    private void startRoundIntro() {
+        if (introTicks > 0) {
+            timers.schedule(INTRO_TIMER, tick + introTicks);
+        } else {
+            timers.cancel(INTRO_TIMER);
+        }
+        if (listener != null) {
+            listener.onRoundStart();
+        }
+    }
+
+    public boolean intersects(Entity a, Entity b) {
+        return  a.x < b.x + b.width &&
+                a.x + a.width > b.x &&
+                a.y < b.y + b.height &&
+                a.y + a.height > b.y;
+    }
+
+    public boolean collidesWithWall(Entity e) {
+        return collidesWithWall(e.x, e.y, e.width, e.height);
+    }
+
+    // only looks at the 1-4 tiles the box overlaps
+    boolean collidesWithWall(int x, int y, int width, int height) {
+        int firstCol = Math.floorDiv(x, tileSize);
+        int lastCol = Math.floorDiv(x + width - 1, tileSize);
+        int firstRow = Math.floorDiv(y, tileSize);
+        int lastRow = Math.floorDiv(y + height - 1, tileSize);
+        for (int r = Math.max(firstRow, 0); r <= lastRow && r < rowCount; r++) {
+            for (int c = Math.max(firstCol, 0); c <= lastCol && c < columnCount; c++) {
+                if (wallGrid[r * columnCount + c]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // checks the pellets on the tiles the entity overlaps, clearing their bits as they are eaten
+    void eatPellets(Entity e) {
+        int firstCol = Math.max(Math.floorDiv(e.x, tileSize), 0);
+        int lastCol = Math.min(Math.floorDiv(e.x + e.width - 1, tileSize), columnCount - 1);
+        int firstRow = Math.max(Math.floorDiv(e.y, tileSize), 0);
+        int lastRow = Math.min(Math.floorDiv(e.y + e.height - 1, tileSize), rowCount - 1);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                int tile = r * columnCount + c;
+                long mask = 1L << tile;
+                if ((pelletBits[tile >>> 6] & mask) == 0) {
+                    continue;
+                }
+                int pelletX = c * tileSize + pelletOffset;
+                int pelletY = r * tileSize + pelletOffset;
+                if (e.x < pelletX + pelletSize && e.x + e.width > pelletX &&
+                        e.y < pelletY + pelletSize && e.y + e.height > pelletY) {
+                    pelletBits[tile >>> 6] &= ~mask;
+                    pelletCount--;
+                    if ((powerBits[tile >>> 6] & mask) != 0) {
+                        score += POWER_PELLET_POINTS;
+                        frighten();
+                    } else {
+                        score += PELLET_POINTS;
+                    }
+                    int eaten = levelPellets - pelletCount;
+                    if (fruitTile >= 0 && (eaten == FRUIT_PELLETS[0] || eaten == FRUIT_PELLETS[1])) {
+                        fruitIndex = eaten == FRUIT_PELLETS[0] ? 0 : 1;
+                        timers.schedule(FRUIT_TIMER, tick + FRUIT_TICKS);
+                    }
+                }
+            }
+        }
+    }
+
+    public void resetEntities() {
+        hero.reset();
+        hero.velocityX = 0;
+        hero.velocityY = 0;
+        for (int i = 0; i < ghosts.count; i++) {
+            ghosts.reset(i);
+            updateGhostDirection(i, random.nextInt(4));
+        }
+        ghostGrid.update(ghosts, 0, ghosts.count);
+        timers.cancel(FRIGHT_TIMER);
+    }
+
+    // Snapshots hold everything step() can change, in a fixed layout for the current level:
+    //   tick, rng state, the tick each timer is due or -1 (longs), score, lives, pellet count,
+    //   ghosts eaten (ints), fruit index, flags (bytes, flags: scatter, game over), then per
+    //   entity, hero first, five ints (x, y, prevX, prevY in pixels, and
+    //   direction | velocityX << 8 | velocityY << 16 | frightened << 24) and finally the pellet bitset.
+    // The default maze comes to 222 bytes. Walls, start positions and the graph are not stored,
+    // so a snapshot only restores into a Simulation on the same level.
+    int snapshotSize() {
+        return 8 + 8 + TIMER_COUNT * 8 + 4 * 4 + 2 + (ghosts.count + 1) * 20 + pelletBits.length * 8;
+    }
+
+    // writes a snapshot at the buffer's position and advances it
+    void snapshot(ByteBuffer out) {
+        out.putLong(tick);
+        out.putLong(random.state());
+        for (int timer = 0; timer < TIMER_COUNT; timer++) {
+            out.putLong(timers.due[timer]);
+        }
+        out.putInt(score);
+        out.putInt(lives);
+        out.putInt(pelletCount);
+        out.putInt(ghostsEaten);
+        out.put((byte) fruitIndex);
+        out.put((byte) ((scatterMode ? 1 : 0) | (gameOver ? 2 : 0)));
+        putEntity(out, hero.x, hero.y, hero.prevX, hero.prevY, directionCode(hero.direction), hero.velocityX, hero.velocityY);
+        EntityStore ghosts = this.ghosts;
+        for (int i = 0; i < ghosts.count; i++) {
+            putEntity(out, ghosts.x[i], ghosts.y[i], ghosts.prevX[i], ghosts.prevY[i],
+                    ghosts.direction[i] | (ghosts.frightened[i] ? 1 << 24 : 0), ghosts.velocityX[i], ghosts.velocityY[i]);
+        }
+        for (long word : pelletBits) {
+            out.putLong(word);
+        }
+    }
+
+    // reads a snapshot from the buffer's position and advances it
+    void restore(ByteBuffer in) {
+        tick = in.getLong();
+        random.setState(in.getLong());
+        timers.clear();
+        for (int timer = 0; timer < TIMER_COUNT; timer++) {
+            long due = in.getLong();
+            if (due != TimerWheel.IDLE) {
+                timers.schedule(timer, due);
+            }
+        }
+        score = in.getInt();
+        lives = in.getInt();
+        pelletCount = in.getInt();
+        ghostsEaten = in.getInt();
+        fruitIndex = in.get();
+        int flags = in.get();
+        scatterMode = (flags & 1) != 0;
+        gameOver = (flags & 2) != 0;
+        hero.x = in.getInt();
+        hero.y = in.getInt();
+        hero.prevX = in.getInt();
+        hero.prevY = in.getInt();
+        int motion = in.getInt();
+        hero.direction = DIRECTIONS[motion & 3];
+        hero.velocityX = (byte) (motion >> 8);
+        hero.velocityY = (byte) (motion >> 16);
+        EntityStore ghosts = this.ghosts;
+        for (int i = 0; i < ghosts.count; i++) {
+            ghosts.x[i] = in.getInt();
+            ghosts.y[i] = in.getInt();
+            ghosts.prevX[i] = in.getInt();
+            ghosts.prevY[i] = in.getInt();
+            motion = in.getInt();
+            ghosts.direction[i] = (byte) (motion & 3);
+            ghosts.frightened[i] = (motion >> 24) != 0;
+            ghosts.velocityX[i] = (byte) (motion >> 8);
+            ghosts.velocityY[i] = (byte) (motion >> 16);
+        }
+        ghostGrid.update(ghosts, 0, ghosts.count);
+        for (int i = 0; i < pelletBits.length; i++) {
+            pelletBits[i] = in.getLong();
+        }
+    }
+
+    // direction may carry flags above bit 24
+    private static void putEntity(ByteBuffer out, int x, int y, int prevX, int prevY,
+            int direction, int velocityX, int velocityY) {
+        out.putInt(x);
+        out.putInt(y);
+        out.putInt(prevX);
+        out.putInt(prevY);
+        out.putInt(direction | (velocityX & 0xFF) << 8 | (velocityY & 0xFF) << 16);
+    }
+}
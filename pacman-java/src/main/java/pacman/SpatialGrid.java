@@ -0,0 +1,135 @@
+package pacman;
+
+import java.util.Arrays;
+
+// Uniform grid over the board for entity-vs-entity queries. Each entity is filed under the cell
+// holding its top-left corner, in an intrusive doubly linked list per cell (head, next, prev),
+// so an entity changes lists in O(1) and only when it crosses a cell edge. Cells are at least
+// one entity wide, so anything overlapping a square lies in the 3x3 cells around it and a
+// query costs the number of entities near it, not the number on the board.
+public class SpatialGrid {
+    static final int NONE = -1;
+    //a cell per tile, or per block of tiles on boards that would need more cells than this
+    static final int MAX_CELLS = 1 << 20;
+
+    final int cellSize;
+    final int rowCount;
+    final int columnCount;
+    final int[] head;
+    int[] next = new int[0];
+    int[] prev = new int[0];
+    int[] cell = new int[0]; // the list each entity is in
+
+    SpatialGrid(int boardWidth, int boardHeight, int tileSize) {
+        int tilesAcross = Math.max(1, (boardWidth + tileSize - 1) / tileSize);
+        int tilesDown = Math.max(1, (boardHeight + tileSize - 1) / tileSize);
+        int block = 1;
+        while ((long) ((tilesAcross + block - 1) / block) * ((tilesDown + block - 1) / block) > MAX_CELLS) {
+            block++;
+        }
+        cellSize = tileSize * block;
+        columnCount = (tilesAcross + block - 1) / block;
+        rowCount = (tilesDown + block - 1) / block;
+        head = new int[rowCount * columnCount];
+        Arrays.fill(head, NONE);
+    }
+
+    // cell for a pixel position, entities past the board's edges count as on the edge
+    int cellOf(int x, int y) {
+        int col = Math.max(0, Math.min(columnCount - 1, Math.floorDiv(x, cellSize)));
+        int row = Math.max(0, Math.min(rowCount - 1, Math.floorDiv(y, cellSize)));
+        return row * columnCount + col;
+    }
+
+    // files every entity in the store afresh, after entities were added or moved wholesale
+    void rebuild(EntityStore store) {
+        Arrays.fill(head, NONE);
+        if (next.length < store.count) {
+            next = new int[store.x.length];
+            prev = new int[store.x.length];
+            cell = new int[store.x.length];
+        }
+        for (int i = 0; i < store.count; i++) {
+            link(i, cellOf(store.x[i], store.y[i]));
+        }
+    }
+
+    // refiles entities from..to-1 that have crossed into another cell since the last call
+    void update(EntityStore store, int from, int to) {
+        int[] x = store.x;
+        int[] y = store.y;
+        for (int i = from; i < to; i++) {
+            int c = cellOf(x[i], y[i]);
+            if (c != cell[i]) {
+                unlink(i);
+                link(i, c);
+            }
+        }
+    }
+
+    private void link(int i, int c) {
+        cell[i] = c;
+        prev[i] = NONE;
+        next[i] = head[c];
+        if (head[c] != NONE) {
+            prev[head[c]] = i;
+        }
+        head[c] = i;
+    }
+
+    private void unlink(int i) {
+        if (prev[i] != NONE) {
+            next[prev[i]] = next[i];
+        } else {
+            head[cell[i]] = next[i];
+        }
+        if (next[i] != NONE) {
+            prev[next[i]] = prev[i];
+        }
+    }
+
+    // Same answer as EntityStore.firstOverlap: the lowest entity at or after from whose square
+    // overlaps the square at left, top, or -1. Entities at or after from must be up to date.
+    int firstOverlap(EntityStore store, int from, int left, int top) {
+        int size = store.size;
+        int[] x = store.x;
+        int[] y = store.y;
+        int centre = cellOf(left, top);
+        int row = centre / columnCount;
+        int col = centre % columnCount;
+        int found = -1;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rowCount - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnCount - 1, col + 1); c++) {
+                for (int i = head[r * columnCount + c]; i != NONE; i = next[i]) {
+                    if (i >= from && (found < 0 || i < found)
+                            && x[i] < left + size && x[i] + size > left && y[i] < top + size && y[i] + size > top) {
+                        found = i;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Writes the entities overlapping the square at left, top into out, in no particular order,
+    // stopping when out is full. Returns how many were written.
+    int overlapping(EntityStore store, int left, int top, int[] out) {
+        int size = store.size;
+        int[] x = store.x;
+        int[] y = store.y;
+        int centre = cellOf(left, top);
+        int row = centre / columnCount;
+        int col = centre % columnCount;
+        int found = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rowCount - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnCount - 1, col + 1); c++) {
+                for (int i = head[r * columnCount + c]; i != NONE && found < out.length; i = next[i]) {
+                    if (x[i] < left + size && x[i] + size > left && y[i] < top + size && y[i] + size > top) {
+                        out[found++] = i;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,128 @@
+package pacman;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+// Every sprite the game draws, scaled for one tile size and packed into a single image. There is
+// one atlas per tile size for the whole process, made on first use and shared by every renderer,
+// so starting a game or opening another view loads and scales nothing. The PNGs themselves are
+// read once, the first time any atlas is made. Sprites are drawn 1:1 from their cell, and keeping
+// them in one image means one surface to cache on the graphics card instead of one per sprite.
+final class SpriteAtlas {
+    //sprite ids, tile sized unless noted
+    static final int WALL = 0;
+    static final int PACMAN_UP = 1;
+    static final int PACMAN_DOWN = 2;
+    static final int PACMAN_LEFT = 3;
+    static final int PACMAN_RIGHT = 4;
+    static final int BLUE_GHOST = 5;
+    static final int ORANGE_GHOST = 6;
+    static final int PINK_GHOST = 7;
+    static final int RED_GHOST = 8;
+    static final int SCARED_GHOST = 9;
+    static final int CHERRY = 10;
+    static final int CHERRY2 = 11;
+    static final int POWER_FOOD = 12; // half a tile
+    static final int POWER_FOOD_SMALL = 13; // three eighths of a tile, the other pulse frame
+    static final int LIVES_ICON = 14; // always 16x16, for the HUD
+    static final int SPRITE_COUNT = 15;
+
+    private static final String[] FILES = {
+        "wall.png", "pacmanUp.png", "pacmanDown.png", "pacmanLeft.png", "pacmanRight.png",
+        "blueGhost.png", "orangeGhost.png", "pinkGhost.png", "redGhost.png", "scaredGhost.png",
+        "cherry.png", "cherry2.png", "powerFood.png", "powerFood.png", "pacmanRight.png"
+    };
+    private static final int LIVES_ICON_SIZE = 16;
+    private static final Map<Integer, SpriteAtlas> ATLASES = new HashMap<Integer, SpriteAtlas>();
+    private static BufferedImage[] sources; // decoded PNGs, by sprite id
+
+    final BufferedImage image;
+    final int tileSize;
+    private final int[] x = new int[SPRITE_COUNT];
+    private final int[] y = new int[SPRITE_COUNT];
+    private final int[] size = new int[SPRITE_COUNT]; // sprites are square
+
+    // the shared atlas for a tile size, made on first use
+    static synchronized SpriteAtlas forTileSize(int tileSize) {
+        SpriteAtlas atlas = ATLASES.get(tileSize);
+        if (atlas == null) {
+            if (sources == null) {
+                sources = load();
+            }
+            atlas = new SpriteAtlas(tileSize, sources);
+            ATLASES.put(tileSize, atlas);
+        }
+        return atlas;
+    }
+
+    private static BufferedImage[] load() {
+        BufferedImage[] images = new BufferedImage[SPRITE_COUNT];
+        Map<String, BufferedImage> byFile = new HashMap<String, BufferedImage>();
+        for (int sprite = 0; sprite < SPRITE_COUNT; sprite++) {
+            String file = FILES[sprite];
+            BufferedImage image = byFile.get(file);
+            if (image == null) {
+                try (InputStream in = SpriteAtlas.class.getResourceAsStream(file)) {
+                    image = in == null ? null : ImageIO.read(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read sprite " + file, e);
+                }
+                if (image == null) {
+                    throw new IllegalStateException("Missing sprite " + file);
+                }
+                byFile.put(file, image);
+            }
+            images[sprite] = image;
+        }
+        return images;
+    }
+
+    private SpriteAtlas(int tileSize, BufferedImage[] sources) {
+        this.tileSize = tileSize;
+        for (int sprite = 0; sprite < SPRITE_COUNT; sprite++) {
+            size[sprite] = tileSize;
+        }
+        size[POWER_FOOD] = Math.max(1, tileSize / 2);
+        size[POWER_FOOD_SMALL] = Math.max(1, tileSize * 3 / 8);
+        size[LIVES_ICON] = LIVES_ICON_SIZE;
+
+        //one row of cells, each as wide as the tile or the lives icon, whichever is bigger
+        int cell = Math.max(tileSize, LIVES_ICON_SIZE);
+        image = createImage(cell * SPRITE_COUNT, cell);
+        Graphics2D g2 = image.createGraphics();
+        g2.setComposite(AlphaComposite.Src);
+        for (int sprite = 0; sprite < SPRITE_COUNT; sprite++) {
+            x[sprite] = sprite * cell;
+            y[sprite] = 0;
+            g2.drawImage(sources[sprite], x[sprite], y[sprite], size[sprite], size[sprite], null);
+        }
+        g2.dispose();
+    }
+
+    // translucent and in the screen's pixel layout when there is a screen, so blits need no conversion
+    private static BufferedImage createImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    int size(int sprite) {
+        return size[sprite];
+    }
+
+    void draw(Graphics g, int sprite, int drawX, int drawY) {
+        int sx = x[sprite];
+        int sy = y[sprite];
+        int s = size[sprite];
+        g.drawImage(image, drawX, drawY, drawX + s, drawY + s, sx, sy, sx + s, sy + s, null);
+    }
+}
@@ -0,0 +1,86 @@
+package pacman;
+
+import java.util.Arrays;
+
+// Tick-based timer wheel for the game's timed effects. Timers are small int ids, each either
+// idle or due at one tick. A slot per tick (modulo the wheel size) holds an intrusive doubly
+// linked list of the timers due then, so scheduling and cancelling are O(1) and a tick only
+// looks at the timers in its own slot. Delays shorter than the wheel, which all of the game's
+// are, never share a slot with a later lap, so a tick costs the number of timers that expire.
+public class TimerWheel {
+    static final int NONE = -1;
+    static final long IDLE = -1;
+
+    final int mask;
+    final int[] head;
+    final long[] due; // per timer, IDLE when not scheduled
+    final int[] next;
+    final int[] prev;
+
+    // slots is rounded up to a power of two
+    TimerWheel(int slots, int timers) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        mask = size - 1;
+        head = new int[size];
+        Arrays.fill(head, NONE);
+        due = new long[timers];
+        Arrays.fill(due, IDLE);
+        next = new int[timers];
+        prev = new int[timers];
+    }
+
+    // (re)schedules a timer for the given tick, replacing any earlier schedule
+    void schedule(int timer, long tick) {
+        cancel(timer);
+        int slot = (int) (tick & mask);
+        due[timer] = tick;
+        prev[timer] = NONE;
+        next[timer] = head[slot];
+        if (head[slot] != NONE) {
+            prev[head[slot]] = timer;
+        }
+        head[slot] = timer;
+    }
+
+    void cancel(int timer) {
+        if (due[timer] == IDLE) {
+            return;
+        }
+        if (prev[timer] != NONE) {
+            next[prev[timer]] = next[timer];
+        } else {
+            head[(int) (due[timer] & mask)] = next[timer];
+        }
+        if (next[timer] != NONE) {
+            prev[next[timer]] = prev[timer];
+        }
+        due[timer] = IDLE;
+    }
+
+    void clear() {
+        for (int timer = 0; timer < due.length; timer++) {
+            cancel(timer);
+        }
+    }
+
+    boolean isScheduled(int timer) {
+        return due[timer] != IDLE;
+    }
+
+    // ticks from tick until the timer fires, 0 when idle
+    long remaining(int timer, long tick) {
+        return due[timer] == IDLE ? 0 : Math.max(0, due[timer] - tick);
+    }
+
+    // Takes one timer due at this tick off the wheel and returns it, or NONE once there are no
+    // more. Called with every tick in turn; timers due at a tick that was skipped never fire.
+    int poll(long tick) {
+        for (int timer = head[(int) (tick & mask)]; timer != NONE; timer = next[timer]) {
+            if (due[timer] == tick) {
+                cancel(timer);
+                return timer;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,189 @@
+package pacman;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Many PacManEnvs stepped together, for training agents in batches. All observations sit in one
+// float[] of count x PacManEnv observation size, env i's planes starting at i * observationSize,
+// ready to hand over as one (count, 4, rows, columns) tensor. stepAll takes an action per env,
+// fills in rewards and done flags, and resets finished envs straight away so the observation is
+// already the next episode's first. Environments are split over a ForkJoinPool in fixed chunks
+// whose tasks are made once and reused, so a step allocates nothing on any thread.
+// Run with: java -cp target/classes pacman.VectorEnv [envs] [steps] [threads] [maxStepsPerEpisode]
+public class VectorEnv {
+    static final int ENVS_PER_TASK = 16;
+
+    final PacManEnv[] envs;
+    final float[] observations;
+    final int observationSize;
+    final long baseSeed;
+    final int[] episodes; // finished so far, per env
+    private final ForkJoinPool pool; // null steps on the calling thread
+    private final Chunk[] chunks;
+    private final RecursiveAction allChunks;
+    private int[] actions;
+    private float[] rewards;
+    private boolean[] dones;
+
+    VectorEnv(int count, Level[] levels, int maxSteps, long baseSeed, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        this.baseSeed = baseSeed;
+        observationSize = PacManEnv.observationSize(levels);
+        observations = new float[count * observationSize];
+        envs = new PacManEnv[count];
+        for (int i = 0; i < count; i++) {
+            envs[i] = new PacManEnv(levels, maxSteps, observations, i * observationSize);
+        }
+        episodes = new int[count];
+        resetAll();
+
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        //a few chunks per thread so a slow one can be balanced out
+        int perChunk = Math.max(ENVS_PER_TASK, (count + threads * 4 - 1) / (threads * 4));
+        chunks = new Chunk[(count + perChunk - 1) / perChunk];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Chunk(c * perChunk, Math.min(count, (c + 1) * perChunk));
+        }
+        allChunks = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(chunks);
+            }
+        };
+    }
+
+    // env i's n-th episode always gets the same seed, whatever the thread count
+    long seed(int env) {
+        return baseSeed + (long) episodes[env] * envs.length + env;
+    }
+
+    void resetAll() {
+        for (int i = 0; i < envs.length; i++) {
+            episodes[i] = 0;
+            envs[i].reset(seed(i));
+        }
+    }
+
+    // one step of every env; rewards[i] and dones[i] are env i's, and a done env is already reset
+    void stepAll(int[] actions, float[] rewards, boolean[] dones) {
+        this.actions = actions;
+        this.rewards = rewards;
+        this.dones = dones;
+        if (pool == null) {
+            step(0, envs.length);
+            return;
+        }
+        for (Chunk chunk : chunks) {
+            chunk.reinitialize();
+        }
+        allChunks.reinitialize();
+        pool.invoke(allChunks);
+    }
+
+    private void step(int from, int to) {
+        for (int i = from; i < to; i++) {
+            PacManEnv env = envs[i];
+            rewards[i] = env.step(actions[i]);
+            dones[i] = env.done;
+            if (env.done) {
+                episodes[i]++;
+                env.reset(seed(i));
+            }
+        }
+    }
+
+    void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    class Chunk extends RecursiveAction {
+        final int from;
+        final int to;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            step(from, to);
+        }
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int maxSteps = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+
+        VectorEnv vector = new VectorEnv(count, new Level[] {Level.DEFAULT}, maxSteps, 1, threads);
+        int[] actions = new int[count];
+        float[] rewards = new float[count];
+        boolean[] dones = new boolean[count];
+        double[] returns = new double[count];
+        //random agent: keeps a direction for a while, like BatchSimulator's player
+        long random = 0x9E3779B97F4A7C15L;
+
+        //warm up so the JIT has compiled the step before timing it
+        for (int s = 0; s < Math.min(steps, 200); s++) {
+            vector.stepAll(actions, rewards, dones);
+        }
+        vector.resetAll();
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        double finishedReturn = 0;
+        long finished = 0;
+        for (int s = 0; s < steps; s++) {
+            for (int i = 0; i < count; i++) {
+                random ^= random << 13;
+                random ^= random >>> 7;
+                random ^= random << 17;
+                if ((random & 7) == 0) {
+                    actions[i] = (int) ((random >>> 8) % PacManEnv.ACTIONS);
+                }
+            }
+            vector.stepAll(actions, rewards, dones);
+            for (int i = 0; i < count; i++) {
+                returns[i] += rewards[i];
+                if (dones[i]) {
+                    finishedReturn += returns[i];
+                    finished++;
+                    returns[i] = 0;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        vector.close();
+
+        long envSteps = (long) count * steps;
+        System.out.printf(Locale.ROOT, "%d envs x %d steps on %d thread(s): %.0f env-steps/s (%.1f ns each)%n",
+                count, steps, threads, envSteps / (elapsed / 1e9), elapsed / (double) envSteps);
+        System.out.printf(Locale.ROOT, "observation %d floats per env (%d planes of %dx%d), %d episodes finished, mean return %.1f%n",
+                vector.observationSize, PacManEnv.PLANES, vector.envs[0].columns, vector.envs[0].rows,
+                finished, finished == 0 ? 0.0 : finishedReturn / finished);
+        System.out.printf(Locale.ROOT, "allocated %s bytes over all threads, %.3f per env-step%n",
+                allocated < 0 ? "n/a" : String.valueOf(allocated), allocated < 0 ? 0.0 : allocated / (double) envSteps);
+    }
+
+    // bytes allocated so far by every live thread, or -1 if the JVM cannot tell
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,86 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DeltaCodecTest {
+    private static final Level[] LEVELS = Level.pack();
+    private static final int INTRO_TICKS = Simulation.introTicks(50);
+
+    // the server's side of a session: a delta a tick, a keyframe when a delta will not do
+    @Test
+    void clientKeptUpByDeltasMatchesTheServerAndItsKeyframes() {
+        Simulation server = new Simulation(INTRO_TICKS, 3, 11, null, LEVELS);
+        Simulation client = new Simulation(INTRO_TICKS, 3, 0, null, LEVELS);
+        Simulation checked = new Simulation(INTRO_TICKS, 3, 0, null, LEVELS);
+        DeltaCodec codec = new DeltaCodec();
+        ByteBuffer frame = ByteBuffer.allocate(DeltaCodec.keyframeBytes(server));
+        Random random = new Random(4);
+        int deltas = 0;
+        int keyframes = 0;
+        int games = 0;
+
+        for (int i = 0; i < 8000; i++) {
+            if (server.gameOver) {
+                //restarting reloads the level, which the codec has to answer with a keyframe
+                server.restart(11 + ++games);
+            } else {
+                server.step(TestGames.nextInput(random));
+            }
+
+            frame.clear();
+            if (codec.sameLevel(server) && codec.delta(server, frame)) {
+                frame.flip();
+                assertEquals(NetProtocol.DELTA, readHeader(frame));
+                DeltaCodec.applyDelta(frame, client);
+                deltas++;
+            } else {
+                codec.keyframe(server, frame);
+                frame.flip();
+                assertEquals(NetProtocol.KEYFRAME, readHeader(frame));
+                assertTrue(DeltaCodec.applyKeyframe(frame, client));
+                keyframes++;
+            }
+            assertEquals(0, frame.remaining(), "whole frame read at tick " + server.tick);
+            assertTrue(DeltaCodec.sameState(server, client), "tick " + server.tick);
+
+            if (i % NetProtocol.KEYFRAME_TICKS == 0) {
+                //a periodic keyframe after the delta describes the state the client already has
+                frame.clear();
+                codec.keyframe(server, frame);
+                frame.flip();
+                readHeader(frame);
+                assertTrue(DeltaCodec.applyKeyframe(frame, checked));
+                assertTrue(DeltaCodec.sameState(client, checked), "tick " + server.tick);
+                assertArrayEquals(TestGames.snapshot(server), TestGames.snapshot(checked), "tick " + server.tick);
+            }
+        }
+        assertTrue(games > 0, "no game ended, restarts were not covered");
+        assertTrue(deltas > keyframes * 10, deltas + " deltas, " + keyframes + " keyframes");
+    }
+
+    @Test
+    void deltaThatDoesNotFitWritesNothing() {
+        Simulation server = new Simulation(0, 3, 5, null, LEVELS);
+        DeltaCodec codec = new DeltaCodec();
+        ByteBuffer frame = ByteBuffer.allocate(DeltaCodec.keyframeBytes(server));
+        codec.keyframe(server, frame);
+        server.step(Simulation.NO_INPUT);
+
+        ByteBuffer small = ByteBuffer.allocate(8);
+        assertFalse(codec.delta(server, small));
+        assertEquals(0, small.position());
+    }
+
+    // skips the length and returns the type
+    private static int readHeader(ByteBuffer frame) {
+        assertEquals(frame.remaining() - 4, frame.getInt());
+        return frame.get();
+    }
+}
@@ -0,0 +1,86 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+    private GameServer server;
+    private Thread serverThread;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new GameServer(0, 20, new Level[] {Level.DEFAULT});
+        server.maxSessions = 1;
+        serverThread = new Thread(server, "game-server");
+        serverThread.start();
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        server.stop();
+        serverThread.join(5000);
+    }
+
+    @Test
+    void helloAndInputToAFullServerOnlyDropThatClient() throws IOException {
+        try (Socket first = connect(); Socket second = connect()) {
+            write(first, hello(1));
+            DataInputStream firstIn = new DataInputStream(first.getInputStream());
+            assertEquals(NetProtocol.KEYFRAME, readFrame(firstIn));
+
+            //no room for a second session; the input behind the HELLO must not reach a missing one
+            ByteBuffer frames = ByteBuffer.allocate(64);
+            frames.put(hello(2));
+            int start = NetProtocol.beginFrame(frames, NetProtocol.INPUT);
+            frames.put((byte) 'U');
+            NetProtocol.endFrame(frames, start);
+            write(second, frames.flip());
+            assertEquals(-1, second.getInputStream().read(), "the second client should be closed");
+
+            //the server carries on for everyone else
+            for (int i = 0; i < 5; i++) {
+                int type = readFrame(firstIn);
+                assertTrue(type == NetProtocol.DELTA || type == NetProtocol.KEYFRAME, "frame type " + type);
+            }
+            assertTrue(serverThread.isAlive());
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", server.port()), 5000);
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static ByteBuffer hello(int session) {
+        ByteBuffer frame = ByteBuffer.allocate(NetProtocol.HEADER_BYTES + 5);
+        int start = NetProtocol.beginFrame(frame, NetProtocol.HELLO);
+        frame.putInt(session);
+        frame.put((byte) NetProtocol.PLAYER);
+        NetProtocol.endFrame(frame, start);
+        return frame.flip();
+    }
+
+    private static void write(Socket socket, ByteBuffer frames) throws IOException {
+        socket.getOutputStream().write(frames.array(), frames.position(), frames.remaining());
+        socket.getOutputStream().flush();
+    }
+
+    // reads one whole frame and returns its type
+    private static int readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int type = in.readUnsignedByte();
+        in.readFully(new byte[length - 1]);
+        return type;
+    }
+}
@@ -0,0 +1,89 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+    @Test
+    void smallValuesGetABucketEach() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.bucket(value));
+            assertEquals(value, LatencyHistogram.highestValue((int) value));
+        }
+        //from 64 on, buckets are two wide, then four, and so on
+        assertEquals(64, LatencyHistogram.bucket(64));
+        assertEquals(64, LatencyHistogram.bucket(65));
+        assertEquals(65, LatencyHistogram.bucket(66));
+        assertEquals(65, LatencyHistogram.highestValue(64));
+    }
+
+    @Test
+    void bucketEdgesMeetWithoutGapsOrOverlaps() {
+        int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+        for (int bucket = 0; bucket < last; bucket++) {
+            long highest = LatencyHistogram.highestValue(bucket);
+            assertEquals(bucket, LatencyHistogram.bucket(highest), "highest value of bucket " + bucket);
+            assertEquals(bucket + 1, LatencyHistogram.bucket(highest + 1), "past bucket " + bucket);
+            long lowest = bucket == 0 ? 0 : LatencyHistogram.highestValue(bucket - 1) + 1;
+            //each bucket is at most 1/32 of its values wide
+            assertTrue((highest - lowest) * 32 <= Math.max(lowest, 1), "width of bucket " + bucket);
+        }
+        assertEquals(last, LatencyHistogram.bucket(1L << 41));
+    }
+
+    @Test
+    void percentilesOfKnownValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1, histogram.percentile(0));
+        assertEquals(50, histogram.percentile(50));
+        assertEquals(63, histogram.percentile(63));
+        //64 and 65 share a bucket, reported as its highest value
+        assertEquals(65, histogram.percentile(64));
+        assertEquals(99, histogram.percentile(99));
+        assertEquals(100, histogram.percentile(100));
+        assertEquals(50, histogram.mean());
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketPrecisionAndTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        histogram.record(16_000_000);
+        long p50 = histogram.percentile(50);
+        assertTrue(p50 >= 1_000_000 && p50 <= 1_000_000 + 1_000_000 / 32, "p50 " + p50);
+        //never more than the largest value recorded
+        assertEquals(16_000_000, histogram.percentile(100));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.percentile(1));
+        assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test
+    void addMergesAndResetEmpties() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            first.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            second.record(1000);
+        }
+        first.add(second);
+        assertEquals(100, first.count);
+        assertEquals(10, first.percentile(90));
+        assertEquals(1000, first.percentile(91));
+        assertEquals(1000, first.max);
+
+        first.reset();
+        assertEquals(0, first.count);
+        assertEquals(0, first.percentile(99));
+    }
+}
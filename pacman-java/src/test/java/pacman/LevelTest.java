@@ -0,0 +1,147 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LevelTest {
+    // an odd number of tiles, so the last byte of the .lvl holds a single tile
+    private static final Level SMALL = Level.of("small", new String[] {
+        "XXXXXXX",
+        "XP *fbX",
+        "XXXXXXX",
+    });
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void levelsRoundTripThroughBothFormats() throws IOException {
+        for (Level level : new Level[] {Level.DEFAULT, SMALL}) {
+            Path text = dir.resolve(level.name + Level.TEXT_EXTENSION);
+            Path binary = dir.resolve(level.name + Level.BINARY_EXTENSION);
+            level.writeText(text);
+            level.writeBinary(binary);
+            assertSameTiles(level, Level.load(text));
+            assertSameTiles(level, Level.load(binary));
+            assertTrue(Level.load(binary) instanceof Level.MappedLevel);
+            assertEquals(Level.HEADER_BYTES + (level.rowCount * level.columnCount + 1) / 2, Files.size(binary));
+        }
+    }
+
+    @Test
+    void oddTilesComeFromTheLowNibble() throws IOException {
+        //rows of three, so the second row starts on an odd index, and 0xF is past the end of CODES
+        Path file = writeLevel(3, 2, (byte) 0x19, (byte) 0x83, (byte) 0x4F);
+        Level level = Level.load(file);
+        assertEquals("Xf*", row(level, 0));
+        assertEquals("PbO", row(level, 1));
+    }
+
+    @Test
+    void badHeadersAreRejected() throws IOException {
+        Path notALevel = dir.resolve("notes" + Level.BINARY_EXTENSION);
+        Files.write(notALevel, "just some text, long enough".getBytes());
+        assertMessage(notALevel, "is not a level file");
+
+        Path tooShort = dir.resolve("short" + Level.BINARY_EXTENSION);
+        Files.write(tooShort, new byte[] {0x50, 0x4d, 0x4c, 0x56, 1});
+        assertMessage(tooShort, "is not a level file");
+
+        Path newer = writeLevel(2, 1, (byte) 0x11);
+        Files.write(newer, ByteBuffer.wrap(Files.readAllBytes(newer)).put(4, (byte) 9).array());
+        assertMessage(newer, "unsupported level version 9");
+
+        //10x10 needs 50 bytes of tiles
+        assertMessage(writeLevel(10, 10, new byte[49]), "truncated 10x10 level");
+        assertMessage(writeLevel(0, 10), "truncated 0x10 level");
+    }
+
+    @Test
+    void packPlaysFilesInNameOrderAndWrapsAround() throws IOException {
+        Level first = Level.of("first", new String[] {
+            "XXXXX",
+            "XP  X",
+            "XXXXX",
+            "XObOX",
+            "XXXXX",
+        });
+        Level second = Level.of("second", new String[] {
+            "XXXXXX",
+            "XP   X",
+            "XXXXXX",
+            "XObOOX",
+            "XXXXXX",
+        });
+        first.writeText(dir.resolve("1-first" + Level.TEXT_EXTENSION));
+        second.writeBinary(dir.resolve("2-second" + Level.BINARY_EXTENSION));
+        Files.writeString(dir.resolve("0-readme.md"), "not a level");
+
+        Level[] pack = Level.loadPack(dir);
+        assertEquals(2, pack.length);
+        assertEquals("1-first" + Level.TEXT_EXTENSION, pack[0].name);
+        assertEquals("2-second" + Level.BINARY_EXTENSION, pack[1].name);
+
+        Simulation sim = new Simulation(0, 3, 1, null, pack);
+        assertEquals(first.hash(), sim.level.hash());
+        clearLevel(sim);
+        assertEquals(1, sim.levelIndex);
+        assertEquals(second.hash(), sim.level.hash());
+        clearLevel(sim);
+        assertEquals(0, sim.levelIndex);
+        assertEquals(first.hash(), sim.level.hash());
+        assertEquals(2, sim.pelletCount);
+    }
+
+    @Test
+    void directoryWithoutLevelsIsAnError() throws IOException {
+        Files.writeString(dir.resolve("readme.md"), "not a level");
+        assertThrows(IOException.class, () -> Level.loadPack(dir));
+    }
+
+    // runs right along the top corridor until the level changes
+    private static void clearLevel(Simulation sim) {
+        int levelIndex = sim.levelIndex;
+        for (int i = 0; i < 100 && sim.levelIndex == levelIndex; i++) {
+            sim.step('R');
+        }
+        assertTrue(sim.levelIndex != levelIndex, "level " + levelIndex + " not cleared");
+    }
+
+    private Path writeLevel(int columns, int rows, byte... tiles) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(Level.HEADER_BYTES + tiles.length);
+        bytes.putInt(Level.MAGIC).put((byte) Level.VERSION).putInt(columns).putInt(rows).put(tiles);
+        Path file = dir.resolve(columns + "x" + rows + "-" + tiles.length + Level.BINARY_EXTENSION);
+        Files.write(file, bytes.array());
+        return file;
+    }
+
+    private static void assertMessage(Path file, String expected) {
+        IOException e = assertThrows(IOException.class, () -> Level.load(file));
+        assertTrue(e.getMessage().contains(expected), e.getMessage());
+    }
+
+    private static void assertSameTiles(Level expected, Level actual) {
+        assertEquals(expected.rowCount, actual.rowCount);
+        assertEquals(expected.columnCount, actual.columnCount);
+        for (int r = 0; r < expected.rowCount; r++) {
+            assertEquals(row(expected, r), row(actual, r), actual.name + " row " + r);
+        }
+        assertEquals(expected.hash(), actual.hash());
+    }
+
+    private static String row(Level level, int r) {
+        char[] row = new char[level.columnCount];
+        for (int c = 0; c < row.length; c++) {
+            row[c] = level.tile(r, c);
+        }
+        return new String(row);
+    }
+}
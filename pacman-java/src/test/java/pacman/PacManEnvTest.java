@@ -0,0 +1,131 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PacManEnvTest {
+    private static final Level[] LEVELS = {Level.DEFAULT};
+
+    @Test
+    void actionsOutsideTheRangeAreRejected() {
+        PacManEnv env = new PacManEnv(LEVELS, 100);
+        assertThrows(IllegalArgumentException.class, () -> env.step(-1));
+        assertThrows(IllegalArgumentException.class, () -> env.step(PacManEnv.ACTIONS));
+        assertEquals(0, env.steps);
+        env.step(PacManEnv.NO_OP);
+        assertEquals(1, env.steps);
+    }
+
+    @Test
+    void sameSeedAndActionsPlayTheSameEpisode() {
+        PacManEnv first = new PacManEnv(LEVELS, 3000);
+        PacManEnv second = new PacManEnv(LEVELS, 3000);
+        for (long seed = 1; seed <= 3; seed++) {
+            first.reset(seed);
+            //second plays a different episode first, so anything reset() misses would show
+            second.reset(seed + 50);
+            play(second, new Random(seed + 50));
+            second.reset(seed);
+            assertArrayEquals(first.observation, second.observation, "seed " + seed);
+
+            Random firstActions = new Random(seed);
+            Random secondActions = new Random(seed);
+            while (!first.done) {
+                float reward = first.step(nextAction(firstActions));
+                assertEquals(reward, second.step(nextAction(secondActions)), "seed " + seed + " step " + first.steps);
+                assertArrayEquals(first.observation, second.observation, "seed " + seed + " step " + first.steps);
+            }
+            assertTrue(second.done);
+        }
+    }
+
+    @Test
+    void vectorEnvResetsFinishedEpisodesStraightAway() {
+        int count = 40;
+        int maxSteps = 25;
+        VectorEnv vector = new VectorEnv(count, LEVELS, maxSteps, 7, 2);
+        int[] actions = new int[count];
+        float[] rewards = new float[count];
+        boolean[] dones = new boolean[count];
+        Arrays.fill(actions, PacManEnv.NO_OP);
+        try {
+            for (int s = 1; s <= maxSteps; s++) {
+                vector.stepAll(actions, rewards, dones);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(s == maxSteps, dones[i], "env " + i + " step " + s);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(1, vector.episodes[i]);
+                assertEquals(0, vector.envs[i].steps);
+                //the observation is already the next episode's first
+                PacManEnv fresh = new PacManEnv(LEVELS, maxSteps);
+                fresh.reset(vector.seed(i));
+                assertArrayEquals(fresh.observation, Arrays.copyOfRange(vector.observations,
+                        i * vector.observationSize, (i + 1) * vector.observationSize), "env " + i);
+            }
+        } finally {
+            vector.close();
+        }
+    }
+
+    @Test
+    void steppingAndResettingAllocatesNothing() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+                "per-thread allocation counters are not available on this JVM");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+        int count = 32;
+        //short episodes, so resets are part of what is measured
+        VectorEnv vector = new VectorEnv(count, LEVELS, 200, 3, 1);
+        int[] actions = new int[count];
+        float[] rewards = new float[count];
+        boolean[] dones = new boolean[count];
+        Random random = new Random(5);
+        int[][] script = new int[2000][count];
+        for (int[] step : script) {
+            for (int i = 0; i < count; i++) {
+                step[i] = nextAction(random);
+            }
+        }
+        for (int[] step : script) {
+            System.arraycopy(step, 0, actions, 0, count);
+            vector.stepAll(actions, rewards, dones);
+        }
+
+        //a recompilation mid-run can allocate a few hundred bytes once; an allocation in the step
+        //itself would show in every round, so one clean round out of several is enough
+        long thread = Thread.currentThread().getId();
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < 5 && fewest > 0; round++) {
+            long before = allocations.getThreadAllocatedBytes(thread);
+            for (int[] step : script) {
+                System.arraycopy(step, 0, actions, 0, count);
+                vector.stepAll(actions, rewards, dones);
+            }
+            fewest = Math.min(fewest, allocations.getThreadAllocatedBytes(thread) - before);
+        }
+        vector.close();
+        assertEquals(0, fewest, "bytes allocated over " + script.length + " steps of " + count + " envs");
+    }
+
+    private static void play(PacManEnv env, Random random) {
+        while (!env.done) {
+            env.step(nextAction(random));
+        }
+    }
+
+    // keeps going most of the time, like someone tapping arrow keys
+    private static int nextAction(Random random) {
+        return random.nextInt(8) == 0 ? random.nextInt(4) : PacManEnv.NO_OP;
+    }
+}
@@ -0,0 +1,45 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RecordingTest {
+    private static final Level[] LEVELS = {Level.DEFAULT};
+
+    @Test
+    void replayEndsInTheRecordedState() throws IOException {
+        for (long seed = 1; seed <= 5; seed++) {
+            Simulation sim = new Simulation(Simulation.introTicks(50), 3, seed, null, LEVELS);
+            //what Recording.start does, without needing -Dpacman.record
+            Recording recording = new Recording(seed, sim.introTicks, sim.initialLives, Level.hash(LEVELS));
+            sim.recording = recording;
+            TestGames.play(sim, new Random(seed), 20_000);
+            recording.endTick = sim.tick;
+            recording.finalScore = sim.score;
+            recording.gameOver = sim.gameOver;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            recording.write(bytes);
+            Recording read = Recording.read(new ByteArrayInputStream(bytes.toByteArray()));
+            assertEquals(recording.eventCount, read.eventCount, "seed " + seed);
+
+            Simulation replayed = Replayer.replay(read, LEVELS);
+            assertArrayEquals(TestGames.snapshot(sim), TestGames.snapshot(replayed), "seed " + seed);
+            assertNull(Replayer.verify(read, LEVELS), "seed " + seed);
+        }
+    }
+
+    @Test
+    void replayOnOtherLevelsIsRejected() {
+        Recording recording = new Recording(1, 0, 3, Level.hash(LEVELS));
+        assertNotNull(Replayer.verify(recording, new Level[] {Mazes.level(21, 21, 4)}));
+    }
+}
@@ -0,0 +1,48 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+// Renders steady-state frames offscreen and checks how many bytes each frame allocates.
+class RenderAllocationTest {
+    private static final int FRAMES = 2_000;
+    // what is left is Java2D's own bookkeeping (clip rectangles, font transforms), a few hundred bytes
+    private static final long BUDGET_PER_FRAME = 1024;
+
+    @Test
+    void steadyStateFramesStayWithinTheBudget() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+                "per-thread allocation counters are not available on this JVM");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+        PacMan game = new PacMan();
+        game.gameLoop.stop();
+        BufferedImage frame = new BufferedImage(game.viewWidth(), game.viewHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = frame.createGraphics();
+
+        // warm up caches, the HUD string and the JIT, keeping the score fixed so the HUD stays put
+        for (int i = 0; i < FRAMES; i++) {
+            game.visualTick++;
+            game.render(g2);
+        }
+
+        long thread = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < FRAMES; i++) {
+            game.visualTick++;
+            game.render(g2);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+        g2.dispose();
+
+        double perFrame = allocated / (double) FRAMES;
+        assertTrue(perFrame <= BUDGET_PER_FRAME,
+                String.format("%.1f bytes allocated per frame, budget %d", perFrame, BUDGET_PER_FRAME));
+    }
+}
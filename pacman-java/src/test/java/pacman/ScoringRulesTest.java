@@ -0,0 +1,129 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+// Power pellets, fright, ghost eating and fruit on a small fixture: the hero runs along a sealed
+// corridor of pellets with a power pellet and the fruit tile on it, and five ghosts pace another
+// corridor below it with one pellet the hero cannot reach, so the level is never cleared.
+class ScoringRulesTest {
+    private static final Level CORRIDOR = Level.of("corridor", new String[] {
+        "XXXXXXXXXXXX",
+        "XP   *   f X",
+        "XXXXXXXXXXXX",
+        "XObopb OOrOX",
+        "XXXXXXXXXXXX",
+    });
+
+    private static Simulation newGame() {
+        return new Simulation(0, 3, 1, null, new Level[] {CORRIDOR});
+    }
+
+    // steps with the given input first and then none, until done holds; fails if it takes too long
+    private static void stepUntil(Simulation sim, char input, BooleanSupplier done) {
+        sim.step(input);
+        for (int i = 0; i < 200 && !done.getAsBoolean(); i++) {
+            sim.step(Simulation.NO_INPUT);
+        }
+        assertTrue(done.getAsBoolean(), "not reached by tick " + sim.tick);
+    }
+
+    private static void park(Simulation sim) {
+        sim.hero.velocityX = 0;
+        sim.hero.velocityY = 0;
+    }
+
+    @Test
+    void powerPelletFrightensEveryGhostForFrightTicks() {
+        Simulation sim = newGame();
+        stepUntil(sim, 'R', () -> sim.timers.isScheduled(Simulation.FRIGHT_TIMER));
+        park(sim);
+        long eatenAt = sim.tick - 1;
+        assertEquals(3 * Simulation.PELLET_POINTS + Simulation.POWER_PELLET_POINTS, sim.score);
+        assertEquals(Simulation.FRIGHT_TICKS - 1, sim.timers.remaining(Simulation.FRIGHT_TIMER, sim.tick));
+
+        while (sim.tick < eatenAt + Simulation.FRIGHT_TICKS) {
+            for (int i = 0; i < sim.ghosts.count; i++) {
+                assertTrue(sim.ghosts.frightened[i], "ghost " + i + " at tick " + sim.tick);
+            }
+            sim.step(Simulation.NO_INPUT);
+        }
+        sim.step(Simulation.NO_INPUT);
+        for (int i = 0; i < sim.ghosts.count; i++) {
+            assertFalse(sim.ghosts.frightened[i], "ghost " + i + " after the fright");
+        }
+    }
+
+    @Test
+    void ghostsEatenOnOnePowerPelletDoubleUpTo1600() {
+        Simulation sim = newGame();
+        sim.frighten();
+        int[] expected = {200, 400, 800, 1600, 1600};
+        for (int i = 0; i < sim.ghosts.count; i++) {
+            int score = sim.score;
+            touchHero(sim, i);
+            assertEquals(expected[i], sim.score - score, "ghost " + i);
+            assertFalse(sim.ghosts.frightened[i]);
+            assertEquals(sim.ghosts.startY[i], sim.ghosts.y[i], "an eaten ghost goes back to its corridor");
+        }
+        assertEquals(3, sim.lives);
+
+        //the next power pellet starts the chain again
+        sim.frighten();
+        int score = sim.score;
+        touchHero(sim, 0);
+        assertEquals(Simulation.GHOST_POINTS, sim.score - score);
+    }
+
+    @Test
+    void unfrightenedGhostCostsALife() {
+        Simulation sim = newGame();
+        touchHero(sim, 2);
+        assertEquals(2, sim.lives);
+        assertEquals(0, sim.score);
+        assertEquals(sim.ghosts.startY[2], sim.ghosts.y[2], "a hit sends everyone back to the start");
+    }
+
+    @Test
+    void fruitShowsAt70And170PelletsUntilEatenOrExpired() {
+        Simulation sim = newGame();
+        //as if the level had started with enough pellets that the next one eaten is the 70th
+        sim.levelPellets = sim.pelletCount + Simulation.FRUIT_PELLETS[0] - 1;
+        stepUntil(sim, 'R', () -> sim.fruitIndex >= 0);
+        park(sim);
+        long shownAt = sim.tick - 1;
+        assertEquals(0, sim.fruitIndex);
+        assertEquals(Simulation.PELLET_POINTS, sim.score);
+
+        while (sim.tick < shownAt + Simulation.FRUIT_TICKS) {
+            assertEquals(0, sim.fruitIndex, "tick " + sim.tick);
+            sim.step(Simulation.NO_INPUT);
+        }
+        sim.step(Simulation.NO_INPUT);
+        assertEquals(-1, sim.fruitIndex, "the fruit expires");
+
+        sim.levelPellets = sim.pelletCount + Simulation.FRUIT_PELLETS[1] - 1;
+        stepUntil(sim, 'R', () -> sim.fruitIndex >= 0);
+        assertEquals(1, sim.fruitIndex);
+        int[] gained = new int[1];
+        while (sim.fruitIndex >= 0) {
+            int score = sim.score;
+            sim.step(Simulation.NO_INPUT);
+            gained[0] = sim.score - score;
+        }
+        assertEquals(Simulation.FRUIT_POINTS[1], gained[0], "the hero ate the fruit");
+        assertFalse(sim.timers.isScheduled(Simulation.FRUIT_TIMER));
+    }
+
+    // puts ghost i on the hero and plays the tick that finds them together
+    private static void touchHero(Simulation sim, int ghost) {
+        sim.ghosts.x[ghost] = sim.hero.x;
+        sim.ghosts.y[ghost] = sim.hero.y;
+        sim.ghostGrid.update(sim.ghosts, 0, sim.ghosts.count);
+        sim.step(Simulation.NO_INPUT);
+    }
+}
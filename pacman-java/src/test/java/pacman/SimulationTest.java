@@ -0,0 +1,90 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SimulationTest {
+    @Test
+    void snapshotOfDefaultMazeIsItsDocumentedSize() {
+        Simulation sim = new Simulation(0, 3, 1, null);
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        sim.snapshot(out);
+        assertEquals(222, sim.snapshotSize());
+        assertEquals(sim.snapshotSize(), out.position());
+    }
+
+    @Test
+    void restoredSnapshotPlaysOnLikeTheOriginal() {
+        Simulation original = new Simulation(10, 1000, 7, null);
+        TestGames.play(original, new Random(1), 600);
+        byte[] saved = TestGames.snapshot(original);
+
+        //a different seed, so anything restore() missed would show
+        Simulation restored = new Simulation(10, 1000, 99, null);
+        restored.restore(ByteBuffer.wrap(saved));
+        assertArrayEquals(saved, TestGames.snapshot(restored));
+
+        Random originalInput = new Random(2);
+        Random restoredInput = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            original.step(TestGames.nextInput(originalInput));
+            restored.step(TestGames.nextInput(restoredInput));
+            assertArrayEquals(TestGames.snapshot(original), TestGames.snapshot(restored), "tick " + original.tick);
+        }
+    }
+
+    @Test
+    void snapshotKeepsPositionsPastAThousandTilesIntact() {
+        //past 32767 pixels across, which positions packed into 16 bits used to wrap
+        char[] row = " ".repeat(1500).toCharArray();
+        row[0] = 'X';
+        row[1] = 'b';
+        row[1400] = 'P';
+        row[row.length - 1] = 'X';
+        String wall = "X".repeat(row.length);
+        Level[] wide = {Level.of("wide", new String[] {wall, new String(row), wall})};
+        Simulation original = new Simulation(0, 3, 3, null, wide);
+        for (int i = 0; i < 10; i++) {
+            original.step('L');
+        }
+        byte[] saved = TestGames.snapshot(original);
+
+        Simulation restored = new Simulation(0, 3, 8, null, wide);
+        restored.restore(ByteBuffer.wrap(saved));
+        assertEquals(original.hero.x, restored.hero.x);
+        assertEquals(original.hero.prevX, restored.hero.prevX);
+        assertEquals(original.ghosts.x[0], restored.ghosts.x[0]);
+        assertArrayEquals(saved, TestGames.snapshot(restored));
+    }
+
+    @Test
+    void restartIsTheSameAsANewSimulation() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Simulation restarted = new Simulation(10, 3, seed * 31, null);
+            TestGames.play(restarted, new Random(seed), 5000);
+            restarted.restart(seed);
+            Simulation fresh = new Simulation(10, 3, seed, null);
+            assertArrayEquals(TestGames.snapshot(fresh), TestGames.snapshot(restarted), "seed " + seed);
+
+            Random restartedInput = new Random(seed + 100);
+            Random freshInput = new Random(seed + 100);
+            for (int i = 0; i < 1500 && !fresh.gameOver; i++) {
+                restarted.step(TestGames.nextInput(restartedInput));
+                fresh.step(TestGames.nextInput(freshInput));
+            }
+            assertArrayEquals(TestGames.snapshot(fresh), TestGames.snapshot(restarted), "seed " + seed + " after playing");
+            assertEquals(fresh.ghostsEaten, restarted.ghostsEaten, "seed " + seed);
+        }
+    }
+
+    @Test
+    void introLastsTheSameWallTimeAtAnyTickLength() {
+        assertEquals(24, Simulation.introTicks(50));
+        assertEquals(30, Simulation.introTicks(40));
+        assertEquals(1, Simulation.introTicks(5000));
+    }
+}
@@ -0,0 +1,57 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpatialGridTest {
+    private static final int TILE = 32;
+
+    @Test
+    void firstOverlapAgreesWithLinearScan() {
+        checkAgainstLinearScan(40, 30, 300, 40, new Random(1));
+    }
+
+    // too many tiles for a cell each, so cells cover blocks of tiles
+    @Test
+    void firstOverlapAgreesWithLinearScanOnBlockCells() {
+        SpatialGrid grid = checkAgainstLinearScan(1500, 1500, 2000, 60, new Random(2));
+        assertTrue(grid.cellSize > TILE, "cell size " + grid.cellSize);
+    }
+
+    // Entities are kept to the top-left area tiles wide so they crowd together, and wander a few
+    // pixels at a time, sometimes off the board, between rounds of queries.
+    private static SpatialGrid checkAgainstLinearScan(int columns, int rows, int entities, int area, Random random) {
+        int span = Math.min(area, columns) * TILE;
+        EntityStore store = new EntityStore(TILE, 4);
+        for (int i = 0; i < entities; i++) {
+            store.add(0, random.nextInt(span), random.nextInt(span));
+        }
+        SpatialGrid grid = new SpatialGrid(columns * TILE, rows * TILE, TILE);
+        grid.rebuild(store);
+
+        int overlaps = 0;
+        for (int round = 0; round < 40; round++) {
+            for (int query = 0; query < 2000; query++) {
+                int left = random.nextInt(span + 2 * TILE) - TILE;
+                int top = random.nextInt(span + 2 * TILE) - TILE;
+                int from = random.nextInt(store.count + 1);
+                int expected = store.firstOverlap(from, left, top);
+                assertEquals(expected, grid.firstOverlap(store, from, left, top),
+                        "round " + round + ", square at " + left + "," + top + " from " + from);
+                if (expected >= 0) {
+                    overlaps++;
+                }
+            }
+            for (int i = 0; i < store.count; i++) {
+                store.x[i] = Math.max(-TILE, Math.min(span, store.x[i] + random.nextInt(17) - 8));
+                store.y[i] = Math.max(-TILE, Math.min(span, store.y[i] + random.nextInt(17) - 8));
+            }
+            grid.update(store, 0, store.count);
+        }
+        assertTrue(overlaps > 1000, "only " + overlaps + " queries hit anything");
+        return grid;
+    }
+}
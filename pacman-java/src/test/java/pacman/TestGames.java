@@ -0,0 +1,28 @@
+package pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// Helpers shared by the determinism tests.
+final class TestGames {
+    private TestGames() {}
+
+    // like BatchSimulator's random player: turns every so often, like someone tapping arrow keys
+    static char nextInput(Random random) {
+        return random.nextInt(8) == 0 ? Simulation.DIRECTIONS[random.nextInt(4)] : Simulation.NO_INPUT;
+    }
+
+    // steps sim the given number of ticks or until the game is over
+    static void play(Simulation sim, Random random, int ticks) {
+        for (int i = 0; i < ticks && !sim.gameOver; i++) {
+            sim.step(nextInput(random));
+        }
+    }
+
+    // everything step() can change, as bytes, so two games can be compared with assertArrayEquals
+    static byte[] snapshot(Simulation sim) {
+        ByteBuffer out = ByteBuffer.allocate(sim.snapshotSize());
+        sim.snapshot(out);
+        return out.array();
+    }
+}
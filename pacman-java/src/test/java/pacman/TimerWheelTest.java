@@ -0,0 +1,91 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+    @Test
+    void slotsAreRoundedUpToAPowerOfTwo() {
+        assertEquals(1023, new TimerWheel(1000, 1).mask);
+        assertEquals(1023, new TimerWheel(1024, 1).mask);
+        assertEquals(1, new TimerWheel(1, 1).mask);
+    }
+
+    @Test
+    void timerFiresOnItsTickOnlyAndOnce() {
+        TimerWheel wheel = new TimerWheel(8, 2);
+        wheel.schedule(0, 5);
+        for (long tick = 0; tick < 5; tick++) {
+            assertEquals(TimerWheel.NONE, wheel.poll(tick));
+        }
+        assertEquals(2, wheel.remaining(0, 3));
+        assertEquals(0, wheel.poll(5));
+        assertEquals(TimerWheel.NONE, wheel.poll(5));
+        assertFalse(wheel.isScheduled(0));
+        assertEquals(0, wheel.remaining(0, 5));
+    }
+
+    @Test
+    void timerDueLapsAheadWaitsForItsOwnLap() {
+        TimerWheel wheel = new TimerWheel(8, 2);
+        wheel.schedule(0, 5 + 8 * 3);
+        wheel.schedule(1, 13);
+        //every one of these ticks lands on the same slot
+        assertEquals(TimerWheel.NONE, wheel.poll(5));
+        assertEquals(1, wheel.poll(13));
+        assertEquals(TimerWheel.NONE, wheel.poll(21));
+        assertEquals(0, wheel.poll(29));
+    }
+
+    @Test
+    void reschedulingMovesTheTimerAndCancellingStopsIt() {
+        TimerWheel wheel = new TimerWheel(8, 2);
+        wheel.schedule(0, 3);
+        wheel.schedule(0, 6);
+        assertEquals(TimerWheel.NONE, wheel.poll(3));
+        assertEquals(0, wheel.poll(6));
+
+        wheel.schedule(1, 7);
+        wheel.cancel(1);
+        wheel.cancel(1);
+        assertFalse(wheel.isScheduled(1));
+        assertEquals(TimerWheel.NONE, wheel.poll(7));
+    }
+
+    @Test
+    void timersSharingASlotAreUnlinkedFromAnywhereInTheList() {
+        TimerWheel wheel = new TimerWheel(8, 4);
+        wheel.schedule(0, 4);
+        wheel.schedule(1, 4);
+        wheel.schedule(2, 4);
+        wheel.schedule(3, 12);
+        wheel.cancel(1);
+
+        Set<Integer> fired = new HashSet<Integer>();
+        for (int timer = wheel.poll(4); timer != TimerWheel.NONE; timer = wheel.poll(4)) {
+            assertTrue(fired.add(timer));
+        }
+        assertEquals(Set.of(0, 2), fired);
+        assertTrue(wheel.isScheduled(3));
+        assertEquals(3, wheel.poll(12));
+    }
+
+    @Test
+    void clearCancelsEverything() {
+        TimerWheel wheel = new TimerWheel(8, 3);
+        wheel.schedule(0, 1);
+        wheel.schedule(1, 1);
+        wheel.schedule(2, 9);
+        wheel.clear();
+        for (int timer = 0; timer < 3; timer++) {
+            assertFalse(wheel.isScheduled(timer));
+        }
+        assertEquals(TimerWheel.NONE, wheel.poll(1));
+        assertEquals(TimerWheel.NONE, wheel.poll(9));
+    }
+}